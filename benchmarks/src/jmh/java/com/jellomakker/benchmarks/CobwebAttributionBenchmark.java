@@ -0,0 +1,49 @@
+package com.jellomakker.benchmarks;
+
+import com.jellomakker.cobwebcounter.tracker.PlayerPositions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * One tick's worth of cobweb block updates per op, each attributed to the
+ * nearest player within 7 blocks from a single per-tick position snapshot,
+ * the way the tracker does it.
+ */
+@State(Scope.Thread)
+public class CobwebAttributionBenchmark {
+    private static final double PLACE_RANGE = 7.0;
+
+    @Param({"10", "100", "1000"})
+    public int players;
+
+    @Param({"64", "4096"})
+    public int updatesPerTick;
+
+    private SyntheticWorld world;
+    private double[] webs;
+    private PlayerPositions positions;
+
+    @Setup
+    public void setup() {
+        world = new SyntheticWorld(players, 42L);
+        webs = SyntheticWorld.randomPoints(updatesPerTick, 11L);
+        positions = new PlayerPositions();
+    }
+
+    @Benchmark
+    public int attributeCobwebPlacements() {
+        positions.clear();
+        for (int i = 0; i < world.players(); i++) {
+            positions.add(world.entityIds[i], world.uuids[i], world.xs[i], world.ys[i], world.zs[i]);
+        }
+        int attributed = 0;
+        for (int w = 0; w < updatesPerTick; w++) {
+            int closest = positions.nearest(webs[w * 3], webs[w * 3 + 1], webs[w * 3 + 2], PLACE_RANGE);
+            if (closest >= 0) attributed++;
+        }
+        return attributed;
+    }
+}
@@ -0,0 +1,88 @@
+package com.jellomakker.benchmarks;
+
+import com.jellomakker.goldenapplecounter.tracker.EatTracker;
+import com.jellomakker.goldenapplecounter.tracker.PlayerTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * One golden apple tracker tick per op. Every tenth player eats on a 40 tick
+ * cycle (32 ticks using, then the stack decrements), the rest stand idle
+ * holding a stack of apples.
+ */
+@State(Scope.Thread)
+public class GoldenAppleTickBenchmark {
+    private static final int CYCLE = 40;
+    private static final int EAT_TICKS = 32;
+
+    @Param({"10", "100", "1000"})
+    public int players;
+
+    private PlayerTable table;
+    private int[] slots;
+    private int[] stacks;
+    private int tick;
+
+    @Setup
+    public void setup() {
+        SyntheticWorld world = new SyntheticWorld(players, 42L);
+        table = new PlayerTable();
+        slots = new int[players];
+        stacks = new int[players];
+        for (int i = 0; i < players; i++) {
+            slots[i] = table.acquire(world.entityIds[i], world.uuids[i]);
+            stacks[i] = 64;
+        }
+    }
+
+    /** Polling mode: every player is observed every tick. */
+    @Benchmark
+    public int pollTick() {
+        tick++;
+        for (int i = 0; i < players; i++) {
+            advance(i);
+            EatTracker.observe(table, slots[i], isEating(i), 0, stacks[i], 0);
+        }
+        return table.count(slots[0]);
+    }
+
+    /** Packet mode: only players whose use flag or stack changed are queued, then drained. */
+    @Benchmark
+    public int packetTick() {
+        tick++;
+        for (int i = 0; i < players; i += 10) {
+            int phase = phase(i);
+            if (phase == 0 || phase == EAT_TICKS) {
+                advance(i);
+                table.enqueue(slots[i]);
+            }
+        }
+
+        int n = table.beginDrain();
+        for (int j = 0; j < n; j++) {
+            int slot = table.takeDrained(j);
+            int i = slot; // slots were acquired in player order
+            if (EatTracker.observe(table, slot, isEating(i), 0, stacks[i], 0)) {
+                table.enqueue(slot);
+            }
+        }
+        return table.count(slots[0]);
+    }
+
+    private int phase(int player) {
+        return (tick + player) % CYCLE;
+    }
+
+    private boolean isEating(int player) {
+        return player % 10 == 0 && phase(player) < EAT_TICKS;
+    }
+
+    private void advance(int player) {
+        if (player % 10 == 0 && phase(player) == EAT_TICKS) {
+            stacks[player] = stacks[player] > 1 ? stacks[player] - 1 : 64;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.jellomakker.benchmarks;
+
+import com.jellomakker.potcounter.tracker.PlayerPositions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * One pot counter tick per op: snapshot the players, then attribute every
+ * potion thrown this tick to the nearest player within 20 blocks.
+ */
+@State(Scope.Thread)
+public class PotAttributionBenchmark {
+    private static final double THROW_RANGE = 20.0;
+
+    @Param({"10", "100", "1000"})
+    public int players;
+
+    @Param({"16", "1024"})
+    public int potionsPerTick;
+
+    private SyntheticWorld world;
+    private double[] potions;
+    private PlayerPositions positions;
+
+    @Setup
+    public void setup() {
+        world = new SyntheticWorld(players, 42L);
+        potions = SyntheticWorld.randomPoints(potionsPerTick, 7L);
+        positions = new PlayerPositions();
+    }
+
+    @Benchmark
+    public int attributePotionThrows() {
+        positions.clear();
+        for (int i = 0; i < world.players(); i++) {
+            positions.add(world.entityIds[i], world.uuids[i], world.xs[i], world.ys[i], world.zs[i]);
+        }
+
+        int attributed = 0;
+        for (int p = 0; p < potionsPerTick; p++) {
+            int closest = positions.nearest(potions[p * 3], potions[p * 3 + 1], potions[p * 3 + 2], THROW_RANGE);
+            if (closest >= 0) attributed++;
+        }
+        return attributed;
+    }
+}
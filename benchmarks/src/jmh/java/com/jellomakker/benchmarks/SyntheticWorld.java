@@ -0,0 +1,50 @@
+package com.jellomakker.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Deterministic stand-in for a client world: players and points of interest
+ * scattered over a square arena at ground level.
+ */
+final class SyntheticWorld {
+    static final double ARENA_SIZE = 256.0;
+
+    final int[] entityIds;
+    final UUID[] uuids;
+    final double[] xs;
+    final double[] ys;
+    final double[] zs;
+
+    SyntheticWorld(int players, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        this.entityIds = new int[players];
+        this.uuids = new UUID[players];
+        this.xs = new double[players];
+        this.ys = new double[players];
+        this.zs = new double[players];
+        for (int i = 0; i < players; i++) {
+            entityIds[i] = 1000 + i;
+            uuids[i] = new UUID(random.nextLong(), random.nextLong());
+            xs[i] = random.nextDouble() * ARENA_SIZE;
+            ys[i] = 64.0 + random.nextDouble() * 4.0;
+            zs[i] = random.nextDouble() * ARENA_SIZE;
+        }
+    }
+
+    int players() {
+        return entityIds.length;
+    }
+
+    /** Packs {@code count} random arena points as x, y, z triples. */
+    static double[] randomPoints(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] points = new double[count * 3];
+        for (int i = 0; i < count; i++) {
+            points[i * 3] = random.nextDouble() * ARENA_SIZE;
+            points[i * 3 + 1] = 64.0 + random.nextDouble() * 4.0;
+            points[i * 3 + 2] = random.nextDouble() * ARENA_SIZE;
+        }
+        return points;
+    }
+}
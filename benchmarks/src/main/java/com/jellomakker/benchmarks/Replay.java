@@ -0,0 +1,82 @@
+package com.jellomakker.benchmarks;
+
+import com.jellomakker.goldenapplecounter.tracker.PlayerTable;
+import com.jellomakker.potcounter.tracker.CountTable;
+import com.jellomakker.potcounter.tracker.PotCounts;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Replays any counter's input capture by reading the counter id from the
+ * file header and handing it to that counter's replayer. Each file is read
+ * into memory first, so the reported time covers decoding and counting only.
+ */
+public final class Replay {
+    /** Offset of the counter id in the header: magic (int), version (short), counter id (byte). */
+    private static final int COUNTER_ID_OFFSET = 6;
+
+    private Replay() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: Replay <capture file>...");
+            System.exit(2);
+        }
+
+        for (String arg : args) {
+            Path file = Path.of(arg);
+            System.out.println(file);
+            byte[] capture = Files.readAllBytes(file);
+            if (capture.length <= COUNTER_ID_OFFSET) throw new IOException("Not a counter capture: " + file);
+            switch (capture[COUNTER_ID_OFFSET]) {
+                case 1 -> goldenApple(capture);
+                case 2 -> pot(capture);
+                case 3 -> cobweb(capture);
+                default -> throw new IOException("Not a counter capture: " + file);
+            }
+        }
+    }
+
+    private static void goldenApple(byte[] capture) throws IOException {
+        long start = System.nanoTime();
+        var result = com.jellomakker.goldenapplecounter.capture.InputReplay.replay(capture);
+        printThroughput(result.events(), result.ticks(), System.nanoTime() - start);
+
+        PlayerTable players = result.tracker().players();
+        for (int slot = 0; slot < players.slotLimit(); slot++) {
+            if (players.isBound(slot) && players.count(slot) > 0) {
+                System.out.printf("  %s  %d%n", players.uuid(slot), players.count(slot));
+            }
+        }
+    }
+
+    private static void pot(byte[] capture) throws IOException {
+        long start = System.nanoTime();
+        var result = com.jellomakker.potcounter.capture.InputReplay.replay(capture);
+        printThroughput(result.events(), result.ticks(), System.nanoTime() - start);
+
+        result.contentsSeen().forEach((contents, n) -> System.out.printf("  %5d  %s%n", n, contents));
+        CountTable counts = result.tracker().counts();
+        for (int slot = 0; slot < counts.slotLimit(); slot++) {
+            if (counts.isUsed(slot)) {
+                System.out.printf("  %s  %s%n", counts.uuid(slot), PotCounts.toString(counts.counts(slot)));
+            }
+        }
+    }
+
+    private static void cobweb(byte[] capture) throws IOException {
+        long start = System.nanoTime();
+        var result = com.jellomakker.cobwebcounter.capture.InputReplay.replay(capture);
+        printThroughput(result.events(), result.ticks(), System.nanoTime() - start);
+
+        result.tracker().counts().forEach((uuid, count) -> System.out.printf("  %s  %d%n", uuid, count));
+    }
+
+    private static void printThroughput(long events, long ticks, long elapsedNanos) {
+        System.out.printf("%d events, %d ticks in %.2f ms (%.0f events/s)%n",
+                events, ticks, elapsedNanos / 1e6, events / (elapsedNanos / 1e9));
+    }
+}
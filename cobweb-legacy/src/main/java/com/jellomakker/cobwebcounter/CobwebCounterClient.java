@@ -1,13 +1,18 @@
 package com.jellomakker.cobwebcounter;
 
 import com.jellomakker.cobwebcounter.config.CobwebCounterConfig;
+import com.jellomakker.cobwebcounter.render.CounterLabels;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
+import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.option.KeyBinding;
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceType;
 import net.minecraft.text.Style;
 import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
@@ -59,6 +64,19 @@ public class CobwebCounterClient implements ClientModInitializer {
             COUNTS.clear();
             ID_TO_UUID.clear();
         });
+        // A resource pack can change glyph widths, which the cached labels are centred by
+        ResourceManagerHelper.get(ResourceType.CLIENT_RESOURCES).registerReloadListener(
+                new SimpleSynchronousResourceReloadListener() {
+                    @Override
+                    public Identifier getFabricId() {
+                        return Identifier.of(MOD_ID, "counter_labels");
+                    }
+
+                    @Override
+                    public void reload(ResourceManager manager) {
+                        CounterLabels.invalidate();
+                    }
+                });
 
         LOGGER.info("[CobwebCounter] Initialized (rendering via EntityRendererMixin)");
     }
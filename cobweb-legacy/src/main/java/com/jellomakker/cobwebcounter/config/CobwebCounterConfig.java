@@ -3,6 +3,7 @@ package com.jellomakker.cobwebcounter.config;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParseException;
+import com.jellomakker.cobwebcounter.render.CounterLabels;
 import net.fabricmc.loader.api.FabricLoader;
 
 import java.io.IOException;
@@ -55,5 +56,6 @@ public class CobwebCounterConfig {
             Files.writeString(CONFIG_PATH, GSON.toJson(this));
         } catch (IOException ignored) {
         }
+        CounterLabels.invalidate();
     }
 }
@@ -2,6 +2,7 @@ package com.jellomakker.cobwebcounter.mixin;
 
 import com.jellomakker.cobwebcounter.CobwebCounterClient;
 import com.jellomakker.cobwebcounter.config.CobwebCounterConfig;
+import com.jellomakker.cobwebcounter.render.CounterLabels;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.font.TextRenderer;
 import net.minecraft.client.render.VertexConsumerProvider;
@@ -9,9 +10,6 @@ import net.minecraft.client.render.entity.EntityRenderer;
 import net.minecraft.client.render.entity.state.EntityRenderState;
 import net.minecraft.client.render.entity.state.PlayerEntityRenderState;
 import net.minecraft.client.util.math.MatrixStack;
-import net.minecraft.text.OrderedText;
-import net.minecraft.text.Text;
-import net.minecraft.util.math.Vec3d;
 import org.joml.Matrix4f;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
@@ -25,6 +23,8 @@ import java.util.UUID;
  * Hooks into EntityRenderer.render() to draw the cobweb counter above each player.
  * Renders text manually using TextRenderer for 1.21.5-1.21.10 compatibility.
  * Rendered at height + 0.9 to sit ABOVE the golden apple counter when both mods are installed.
+ * Labels come laid out from {@link CounterLabels}, and with a background the
+ * text and background go out in one draw call.
  */
 @Mixin(EntityRenderer.class)
 public abstract class EntityRendererMixin<T, S extends EntityRenderState> {
@@ -54,7 +54,8 @@ public abstract class EntityRendererMixin<T, S extends EntityRenderState> {
         int count = CobwebCounterClient.getCount(uuid);
         if (count <= 0) return;
 
-        Text counterText = CobwebCounterClient.buildCounterText(count);
+        TextRenderer textRenderer = this.getTextRenderer();
+        CounterLabels.Label label = CounterLabels.get(count, textRenderer);
 
         // Position at height + 0.9 (above golden apple counter's +0.6)
         double yOffset = state.height + 0.9;
@@ -72,39 +73,22 @@ public abstract class EntityRendererMixin<T, S extends EntityRenderState> {
         matrices.multiply(client.gameRenderer.getCamera().getRotation());
         matrices.scale(-0.025f, -0.025f, 0.025f);
 
-        TextRenderer textRenderer = this.getTextRenderer();
-        OrderedText orderedText = counterText.asOrderedText();
-        float textWidth = textRenderer.getWidth(orderedText);
-        float x = -textWidth / 2.0f;
-
         Matrix4f positionMatrix = matrices.peek().getPositionMatrix();
 
-        // Background
-        if (config.showBackground) {
-            int bgColor = (int) (client.options.getTextBackgroundOpacity(0.25f) * 255.0f) << 24;
-            textRenderer.draw(
-                    orderedText,
-                    x, 0,
-                    0x20FFFFFF,
-                    false,
-                    positionMatrix,
-                    vertexConsumers,
-                    TextRenderer.TextLayerType.SEE_THROUGH,
-                    bgColor,
-                    light
-            );
-        }
-
-        // Foreground text
+        // Both passes used to draw see-through with a background, where the opaque
+        // foreground covers the faint background-pass text, so one draw does both
+        int bgColor = config.showBackground
+                ? (int) (client.options.getTextBackgroundOpacity(0.25f) * 255.0f) << 24
+                : 0;
         textRenderer.draw(
-                orderedText,
-                x, 0,
+                label.text(),
+                label.x(), 0,
                 0xFFFFFFFF,
                 false,
                 positionMatrix,
                 vertexConsumers,
                 config.showBackground ? TextRenderer.TextLayerType.SEE_THROUGH : TextRenderer.TextLayerType.NORMAL,
-                0,
+                bgColor,
                 light
         );
 
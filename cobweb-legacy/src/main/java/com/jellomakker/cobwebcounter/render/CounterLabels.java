@@ -0,0 +1,57 @@
+package com.jellomakker.cobwebcounter.render;
+
+import com.jellomakker.cobwebcounter.CobwebCounterClient;
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.text.OrderedText;
+
+import java.util.Arrays;
+
+/**
+ * Counter labels laid out once per count: the ordered text and the x offset
+ * that centres it are kept, so the renderer neither rebuilds the text tree
+ * nor measures it every frame. Counts past the cache size are built on
+ * demand. Cleared whenever the config is saved and whenever resources are
+ * reloaded, since a resource pack can change glyph widths. Render thread only.
+ */
+public final class CounterLabels {
+    private static final int CACHE_SIZE = 256;
+    private static final Label[] LABELS = new Label[CACHE_SIZE];
+
+    /** Bumped whenever something the labels depend on changes. */
+    private static int version;
+    private static int cachedVersion;
+
+    private CounterLabels() {
+    }
+
+    public static Label get(int count, TextRenderer textRenderer) {
+        if (cachedVersion != version) {
+            Arrays.fill(LABELS, null);
+            cachedVersion = version;
+        }
+        if (count < 0 || count >= CACHE_SIZE) {
+            return build(count, textRenderer);
+        }
+
+        Label label = LABELS[count];
+        if (label == null) {
+            label = build(count, textRenderer);
+            LABELS[count] = label;
+        }
+        return label;
+    }
+
+    /** Drops every cached label; they are rebuilt lazily on next use. */
+    public static void invalidate() {
+        version++;
+    }
+
+    private static Label build(int count, TextRenderer textRenderer) {
+        OrderedText text = CobwebCounterClient.buildCounterText(count).asOrderedText();
+        return new Label(text, -textRenderer.getWidth(text) / 2.0f);
+    }
+
+    /** A laid-out label and the x offset that centres it on the player. */
+    public record Label(OrderedText text, float x) {
+    }
+}
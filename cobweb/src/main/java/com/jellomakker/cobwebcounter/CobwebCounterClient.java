@@ -1,28 +1,55 @@
 package com.jellomakker.cobwebcounter;
 
+import com.jellomakker.cobwebcounter.capture.InputCapture;
+import com.jellomakker.cobwebcounter.classify.BlockStateFilter;
 import com.jellomakker.cobwebcounter.config.CobwebCounterConfig;
+import com.jellomakker.cobwebcounter.persist.CountJournal;
+import com.jellomakker.cobwebcounter.render.TopPlayersHud;
+import com.jellomakker.cobwebcounter.tracker.BlockChangeBuffer;
+import com.jellomakker.cobwebcounter.tracker.CobwebIndex;
+import com.jellomakker.cobwebcounter.tracker.CobwebTracker;
+import com.jellomakker.cobwebcounter.tracker.Ranking;
+import com.jellomakker.cobwebcounter.tracker.WebStats;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.client.rendering.v1.hud.HudElementRegistry;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.block.BlockState;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.AbstractClientPlayerEntity;
+import net.minecraft.client.network.ServerInfo;
 import net.minecraft.client.option.KeyBinding;
+import net.minecraft.client.world.ClientWorld;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.text.Style;
 import net.minecraft.text.StyleSpriteSource;
 import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
 import org.lwjgl.glfw.GLFW;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashSet;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
 
 public class CobwebCounterClient implements ClientModInitializer {
     private static final Logger LOGGER = LoggerFactory.getLogger("cobwebcounter");
@@ -31,17 +58,47 @@ public class CobwebCounterClient implements ClientModInitializer {
     public static final Identifier COBWEB_FONT = Identifier.of(MOD_ID, "cobweb");
     public static final String COBWEB_ICON = "\uE200";
 
-    private static final Map<UUID, Integer> COUNTS = new ConcurrentHashMap<>();
+    /** Per-player counts and placement bookkeeping; see {@link CobwebTracker}. */
+    private static final CobwebTracker TRACKER = new CobwebTracker();
 
-    /** Entity network ID → UUID, populated each tick for the renderer mixin. */
-    private static final Map<Integer, UUID> ID_TO_UUID = new ConcurrentHashMap<>();
+    /** New cobwebs seen this tick, as packed positions; attributed at the end of the tick. */
+    private static final BlockChangeBuffer BLOCK_CHANGES = new BlockChangeBuffer(64);
 
-    /**
-     * Set of block positions we have already counted, so multiple mixins
-     * firing for the same placement don't double-count.
-     * Cleared each tick.
-     */
-    private static final Set<BlockPos> COUNTED_THIS_TICK = ConcurrentHashMap.newKeySet();
+    /** Cobwebs already in the world, so a re-sent web is not counted as a new placement. */
+    private static final CobwebIndex KNOWN_COBWEBS = new CobwebIndex();
+
+    /** Known webs removed this tick, as packed positions; the nearest player is credited with breaking them. */
+    private static final BlockChangeBuffer REMOVALS = new BlockChangeBuffer(64);
+
+    /** Standing webs, lifetimes and breaks per player; fed from the tags in {@link #KNOWN_COBWEBS}. */
+    private static final WebStats STATS = new WebStats();
+
+    /** Takes a web that left the index without being removed off its owner's standing count. */
+    private static final LongConsumer UNLOADED_WEB = tag -> {
+        int slot = STATS.slotOf(CobwebIndex.owner(tag));
+        if (slot != WebStats.NONE) STATS.unloaded(slot);
+    };
+
+    private static final DateTimeFormatter CAPTURE_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    /** Open input capture, or null when capture is off. */
+    private static InputCapture capture;
+
+    /** Count journal for the current server, or null when persistence is off. */
+    private static CountJournal journal;
+
+    /** Snapshots every loaded player's position for placement attribution. */
+    private static final CobwebTracker.PositionSource WORLD_POSITIONS = into -> {
+        ClientWorld world = MinecraftClient.getInstance().world;
+        if (world == null) return;
+        List<AbstractClientPlayerEntity> players = world.getPlayers();
+        for (int i = 0, n = players.size(); i < n; i++) {
+            PlayerEntity player = players.get(i);
+            Vec3d playerPos = player.getSyncedPos();
+            into.add(player.getId(), player.getUuid(), playerPos.x, playerPos.y, playerPos.z);
+        }
+        if (capture != null) capture.positions(into);
+    };
 
     private static KeyBinding resetKeybind;
 
@@ -56,9 +113,46 @@ public class CobwebCounterClient implements ClientModInitializer {
         ));
 
         ClientTickEvents.END_CLIENT_TICK.register(this::onTick);
+        HudElementRegistry.addLast(Identifier.of(MOD_ID, "top_players"), TopPlayersHud::render);
+        ClientEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof PlayerEntity player) {
+                TRACKER.onPlayerLoad(player.getId(), player.getUuid());
+                if (capture != null) capture.playerLoad(player.getId(), player.getUuid());
+            }
+        });
+        ClientEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof PlayerEntity player) {
+                TRACKER.onPlayerUnload(player.getId(), player.getUuid());
+                if (capture != null) capture.playerUnload(player.getId(), player.getUuid());
+            }
+        });
+        // Webs arriving with chunk data were already there; they are indexed rather than counted
+        ClientChunkEvents.CHUNK_LOAD.register((world, chunk) -> indexChunk(chunk));
+        ClientChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> {
+            ChunkPos chunkPos = chunk.getPos();
+            KNOWN_COBWEBS.unloadChunk(chunkPos.x, chunkPos.z, UNLOADED_WEB);
+        });
+        // Entity ids are per world; drop every binding so a dimension switch can't leave stale ids behind
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> {
+            BLOCK_CHANGES.clear();
+            REMOVALS.clear();
+            KNOWN_COBWEBS.clear();
+            STATS.clearStanding();
+            TRACKER.onWorldChange();
+            if (capture != null) capture.worldChange();
+        });
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> {
+            if (CobwebCounterConfig.get().captureInputs) startCapture();
+            if (CobwebCounterConfig.get().persistCounts) openJournal(client.getCurrentServerEntry());
+        });
         ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> {
-            COUNTS.clear();
-            ID_TO_UUID.clear();
+            BLOCK_CHANGES.clear();
+            REMOVALS.clear();
+            KNOWN_COBWEBS.clear();
+            STATS.clear();
+            TRACKER.clear();
+            stopCapture();
+            closeJournal();
         });
 
         LOGGER.info("[CobwebCounter] Initialized (rendering via EntityRendererMixin)");
@@ -74,64 +168,170 @@ public class CobwebCounterClient implements ClientModInitializer {
             }
         }
 
-        // Maintain the entity-id → UUID map for the renderer mixin
-        Set<UUID> active = new HashSet<>();
-        for (PlayerEntity player : client.world.getPlayers()) {
-            UUID uuid = player.getUuid();
-            active.add(uuid);
-            ID_TO_UUID.put(player.getId(), uuid);
+        // Attribute this tick's placements and removals against one position snapshot
+        if (!BLOCK_CHANGES.isEmpty() || !REMOVALS.isEmpty()) {
+            CobwebCounterConfig config = CobwebCounterConfig.get();
+            if (config.enabled) {
+                UUID excluded = !config.includeSelfDisplay && client.player != null ? client.player.getUuid() : null;
+                for (int i = 0, n = BLOCK_CHANGES.size(); i < n; i++) {
+                    long packed = BLOCK_CHANGES.get(i);
+                    int x = BlockPos.unpackLongX(packed);
+                    int y = BlockPos.unpackLongY(packed);
+                    int z = BlockPos.unpackLongZ(packed);
+                    UUID owner = TRACKER.onCobweb(x, y, z, excluded, WORLD_POSITIONS);
+                    if (capture != null) capture.cobweb(x, y, z, excluded);
+                    if (owner == null) continue;
+
+                    int slot = STATS.acquire(owner);
+                    // A web removed again within the tick is no longer in the index and never stood
+                    if (KNOWN_COBWEBS.setTag(packed, CobwebIndex.tag(STATS.owner(slot), TRACKER.tick()))) {
+                        STATS.placed(slot);
+                    }
+                }
+                for (int i = 0, n = REMOVALS.size(); i < n; i++) {
+                    long packed = REMOVALS.get(i);
+                    UUID breaker = TRACKER.nearestPlayer(BlockPos.unpackLongX(packed), BlockPos.unpackLongY(packed),
+                            BlockPos.unpackLongZ(packed), excluded, WORLD_POSITIONS);
+                    if (breaker == null) continue;
+                    STATS.broke(STATS.acquire(breaker));
+                }
+            }
+            BLOCK_CHANGES.clear();
+            REMOVALS.clear();
         }
 
-        COUNTS.keySet().retainAll(active);
-        ID_TO_UUID.values().retainAll(active);
-        COUNTED_THIS_TICK.clear();
+        TRACKER.endTick();
+        if (capture != null) {
+            capture.tick();
+            if (capture.failed()) {
+                LOGGER.warn("[CobwebCounter] Input capture failed to write, stopping");
+                stopCapture();
+            }
+        }
+        if (journal != null) {
+            journal.flush();
+            Map<UUID, Integer> restored = journal.takeRestored();
+            if (restored != null) TRACKER.seed(restored);
+            if (journal.failed()) {
+                LOGGER.warn("[CobwebCounter] Count journal failed to read or write, counts are no longer saved");
+                closeJournal();
+            }
+        }
     }
 
     /**
-     * Called from {@link com.jellomakker.cobwebcounter.mixin.ClientPlayNetworkHandlerMixin}
-     * when a cobweb block appears in the world. Attributes the placement to the
-     * nearest player within interaction range (6 blocks).
+     * Called from the block update hooks for every block change. A tracked
+     * block state is buffered only where no web was known, so re-sent webs
+     * and the several hooks seeing one update count once; any other state
+     * removes a web known at that position, ending its owner's lifetime
+     * for it. Buffered placements and removals are attributed to the
+     * nearest player at the end of the tick.
      */
-    public static void attributeCobwebPlacement(BlockPos pos) {
-        if (!COUNTED_THIS_TICK.add(pos.toImmutable())) return;
-
-        MinecraftClient client = MinecraftClient.getInstance();
-        if (client.world == null) return;
+    public static void onBlockChange(BlockPos pos, BlockState state) {
+        if (BlockStateFilter.matches(state)) {
+            long packed = pos.asLong();
+            if (KNOWN_COBWEBS.add(packed)) BLOCK_CHANGES.add(packed);
+        } else if (!KNOWN_COBWEBS.isEmpty()) {
+            long packed = pos.asLong();
+            long tag = KNOWN_COBWEBS.remove(packed);
+            if (tag == CobwebIndex.MISSING) return;
+            int slot = STATS.slotOf(CobwebIndex.owner(tag));
+            // Untagged webs and webs of players whose stats were since dropped have no owner
+            if (slot != WebStats.NONE) STATS.removed(slot, CobwebIndex.age(tag, TRACKER.tick()));
+            REMOVALS.add(packed);
+        }
+    }
 
-        CobwebCounterConfig config = CobwebCounterConfig.get();
-        if (!config.enabled) return;
+    /** Indexes the webs in a chunk that just arrived, replacing what was known for it. */
+    private static void indexChunk(WorldChunk chunk) {
+        try {
+            ChunkPos chunkPos = chunk.getPos();
+            KNOWN_COBWEBS.unloadChunk(chunkPos.x, chunkPos.z, UNLOADED_WEB);
 
-        Vec3d cobwebPos = Vec3d.ofCenter(pos);
-        double closestDist = 7.0;
-        PlayerEntity closest = null;
+            ChunkSection[] sections = chunk.getSectionArray();
+            for (int i = 0; i < sections.length; i++) {
+                ChunkSection section = sections[i];
+                // The palette check skips almost every section without looking at its blocks
+                if (section.isEmpty() || !section.hasAny(BlockStateFilter::matches)) continue;
 
-        for (PlayerEntity player : client.world.getPlayers()) {
-            double dist = player.getSyncedPos().distanceTo(cobwebPos);
-            if (dist < closestDist) {
-                closestDist = dist;
-                closest = player;
+                int baseY = ChunkSectionPos.getBlockCoord(chunk.sectionIndexToCoord(i));
+                for (int y = 0; y < 16; y++) {
+                    for (int z = 0; z < 16; z++) {
+                        for (int x = 0; x < 16; x++) {
+                            if (BlockStateFilter.matches(section.getBlockState(x, y, z))) {
+                                KNOWN_COBWEBS.add(BlockPos.asLong(
+                                        chunkPos.getStartX() + x, baseY + y, chunkPos.getStartZ() + z));
+                            }
+                        }
+                    }
+                }
             }
+        } catch (Throwable ignored) {
+            // Cross-version safety
         }
+    }
 
-        if (closest != null) {
-            UUID uuid = closest.getUuid();
+    private static void startCapture() {
+        stopCapture();
+        Path file = FabricLoader.getInstance().getGameDir().resolve("captures")
+                .resolve(MOD_ID + "-" + LocalDateTime.now().format(CAPTURE_NAME) + ".bin");
+        try {
+            capture = InputCapture.open(file);
+        } catch (IOException e) {
+            LOGGER.warn("[CobwebCounter] Could not open input capture {}: {}", file, e.toString());
+            return;
+        }
 
-            if (!config.includeSelfDisplay && client.player != null
-                    && uuid.equals(client.player.getUuid())) {
-                return;
-            }
+        // Players loaded before the connection finished joining
+        TRACKER.players().forEach(capture::playerLoad);
+        LOGGER.info("[CobwebCounter] Capturing inputs to {}", file);
+    }
 
-            COUNTS.merge(uuid, 1, Integer::sum);
-        }
+    private static void stopCapture() {
+        if (capture == null) return;
+        capture.close();
+        capture = null;
+    }
+
+    /**
+     * Opens the count journal for a multiplayer server. Its counts are read in
+     * the background and seeded on the tick they arrive. Singleplayer and LAN
+     * worlds have no server entry and are not persisted.
+     */
+    private static void openJournal(ServerInfo server) {
+        closeJournal();
+        if (server == null) return;
+
+        String name = server.address.replaceAll("[^A-Za-z0-9._-]", "_") + ".journal";
+        Path file = FabricLoader.getInstance().getConfigDir().resolve(MOD_ID).resolve("counts").resolve(name);
+        journal = CountJournal.open(file);
+        TRACKER.setListener(journal);
+    }
+
+    private static void closeJournal() {
+        if (journal == null) return;
+        TRACKER.setListener(null);
+        journal.close();
+        journal = null;
     }
 
     public static int getCount(UUID playerUuid) {
-        return COUNTS.getOrDefault(playerUuid, 0);
+        return TRACKER.getCount(playerUuid);
+    }
+
+    /** Per-player web statistics, read by the renderer mixin. */
+    public static WebStats getWebStats() {
+        return STATS;
     }
 
     /** Look up UUID from an entity network id. */
     public static UUID getUuidFromEntityId(int entityId) {
-        return ID_TO_UUID.get(entityId);
+        return TRACKER.getUuid(entityId);
+    }
+
+    /** Players by count, highest first, read by the top players panel. */
+    public static Ranking getRanking() {
+        return TRACKER.ranking();
     }
 
     /** Build the counter text with a cobweb icon from our custom font. */
@@ -141,9 +341,18 @@ public class CobwebCounterClient implements ClientModInitializer {
         return Text.literal(String.valueOf(count)).append(Text.literal(" ")).append(cobwebIcon);
     }
 
+    /** The counter text followed by a player's web statistics in gray. */
+    public static Text buildStatsText(int count, int slot) {
+        double averageTicks = STATS.averageLifetimeTicks(slot);
+        String average = averageTicks < 0 ? "-" : String.format(Locale.ROOT, "%.1fs", averageTicks / 20.0);
+        String stats = " " + STATS.standing(slot) + " up, " + average + " avg, " + STATS.broken(slot) + " broken";
+        return buildCounterText(count).copy().append(Text.literal(stats).formatted(Formatting.GRAY));
+    }
+
     public static void clearAll() {
-        COUNTS.clear();
-        ID_TO_UUID.clear();
-        COUNTED_THIS_TICK.clear();
+        TRACKER.resetCounts();
+        STATS.clear();
+        KNOWN_COBWEBS.clearTags();
+        if (capture != null) capture.reset();
     }
 }
@@ -0,0 +1,84 @@
+package com.jellomakker.cobwebcounter.capture;
+
+import com.jellomakker.cobwebcounter.tracker.CobwebTracker;
+import com.jellomakker.cobwebcounter.tracker.PlayerPositions;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Feeds an {@link InputCapture} recording back through {@link CobwebTracker}
+ * as fast as possible, without the game. Takes the whole recording in memory,
+ * so timing a replay covers decoding and counting only. The command-line
+ * driver that times and prints replays lives in the benchmarks project.
+ */
+public final class InputReplay {
+    private InputReplay() {
+    }
+
+    public static Result replay(byte[] capture) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(capture));
+        if (in.readInt() != InputCapture.MAGIC || in.readShort() != InputCapture.VERSION
+                || in.readByte() != InputCapture.COUNTER_ID) {
+            throw new IOException("Not a cobweb counter capture");
+        }
+        in.readLong(); // start millis
+
+        CobwebTracker tracker = new CobwebTracker();
+        // Recorded right before the placement that asked for it
+        PlayerPositions recorded = new PlayerPositions();
+        CobwebTracker.PositionSource source = into -> {
+            for (int i = 0; i < recorded.size(); i++) {
+                into.add(recorded.entityId(i), recorded.uuid(i), recorded.x(i), recorded.y(i), recorded.z(i));
+            }
+        };
+
+        long events = 0;
+        long ticks = 0;
+        try {
+            while (true) {
+                byte type = in.readByte();
+                events++;
+                switch (type) {
+                    case InputCapture.TICK -> {
+                        tracker.endTick();
+                        ticks++;
+                    }
+                    case InputCapture.PLAYER_LOAD -> tracker.onPlayerLoad(in.readInt(), readUuid(in));
+                    case InputCapture.PLAYER_UNLOAD -> tracker.onPlayerUnload(in.readInt(), readUuid(in));
+                    case InputCapture.WORLD_CHANGE -> tracker.onWorldChange();
+                    case InputCapture.COBWEB -> {
+                        int x = in.readInt();
+                        int y = in.readInt();
+                        int z = in.readInt();
+                        tracker.onCobweb(x, y, z, readUuid(in), source);
+                    }
+                    case InputCapture.POSITIONS -> {
+                        recorded.clear();
+                        for (int i = 0, n = in.readInt(); i < n; i++) {
+                            recorded.add(in.readInt(), readUuid(in), in.readDouble(), in.readDouble(), in.readDouble());
+                        }
+                    }
+                    case InputCapture.RESET -> tracker.resetCounts();
+                    default -> throw new IOException("Unknown event type " + type + " after " + events + " events");
+                }
+            }
+        } catch (EOFException ignored) {
+            // End of the recording
+        }
+        return new Result(tracker, events, ticks);
+    }
+
+    /** The tracker after the last event, and how many events and ticks were replayed. */
+    public record Result(CobwebTracker tracker, long events, long ticks) {
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        long msb = in.readLong();
+        long lsb = in.readLong();
+        return msb == 0L && lsb == 0L ? null : new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,44 @@
+package com.jellomakker.cobwebcounter.classify;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Says whether a block update is one the counter cares about. Every state
+ * of the tracked blocks is marked in a bitset indexed by raw state id, built
+ * on first use, so a block update costs one id lookup and a bit test.
+ * Client thread only.
+ */
+public final class BlockStateFilter {
+    private static final List<Block> TRACKED_BLOCKS = List.of(Blocks.COBWEB);
+
+    private static long[] tracked;
+
+    private BlockStateFilter() {
+    }
+
+    public static boolean matches(BlockState state) {
+        long[] words = tracked;
+        if (words == null) {
+            words = compile();
+            tracked = words;
+        }
+        int id = Block.getRawIdFromState(state);
+        int word = id >>> 6;
+        return word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    private static long[] compile() {
+        BitSet states = new BitSet();
+        for (Block block : TRACKED_BLOCKS) {
+            for (BlockState state : block.getStateManager().getStates()) {
+                states.set(Block.getRawIdFromState(state));
+            }
+        }
+        return states.toLongArray();
+    }
+}
@@ -3,6 +3,7 @@ package com.jellomakker.cobwebcounter.config;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParseException;
+import com.jellomakker.cobwebcounter.render.CounterLabels;
 import net.fabricmc.loader.api.FabricLoader;
 
 import java.io.IOException;
@@ -18,8 +19,29 @@ public class CobwebCounterConfig {
     public boolean enabled = true;
     public boolean showOnPlayerName = true;
     public boolean includeSelfDisplay = false;
-    /** When false, the counter label won't show through blocks (no see-through background). */
+    /**
+     * When false, the counter label won't show through blocks (no see-through
+     * background). Only read by the counter that draws the combined label.
+     */
     public boolean showBackground = true;
+    /** Saves counts per server so they survive a crash or reconnect. */
+    public boolean persistCounts = false;
+    /** This counter's part of the label is not drawn past this many blocks; 0 draws it at any distance. */
+    public int labelMaxDistance = 64;
+    /**
+     * Past this many blocks this counter's part of the label shrinks to its
+     * icon; 0 always draws it in full. Config-file only.
+     */
+    public int iconOnlyDistance = 32;
+    /** Rows in the top players panel; 0 hides this counter from the panel. */
+    public int topPlayers = 0;
+    /** Adds standing webs, average web lifetime and webs broken to the counter label. */
+    public boolean showWebStats = false;
+    /**
+     * Records every tracker input to {@code captures/} in the game directory
+     * for headless replay. Config-file only; meant for debugging and profiling.
+     */
+    public boolean captureInputs = false;
 
     public static CobwebCounterConfig get() {
         if (instance == null) {
@@ -55,5 +77,6 @@ public class CobwebCounterConfig {
             Files.writeString(CONFIG_PATH, GSON.toJson(this));
         } catch (IOException ignored) {
         }
+        CounterLabels.invalidate();
     }
 }
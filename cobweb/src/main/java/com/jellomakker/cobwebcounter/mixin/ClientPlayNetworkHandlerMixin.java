@@ -1,7 +1,6 @@
 package com.jellomakker.cobwebcounter.mixin;
 
 import com.jellomakker.cobwebcounter.CobwebCounterClient;
-import net.minecraft.block.Blocks;
 import net.minecraft.client.network.ClientPlayNetworkHandler;
 import net.minecraft.network.packet.s2c.play.BlockUpdateS2CPacket;
 import net.minecraft.network.packet.s2c.play.ChunkDeltaUpdateS2CPacket;
@@ -23,9 +22,7 @@ public class ClientPlayNetworkHandlerMixin {
     @Inject(method = "onBlockUpdate", at = @At("TAIL"), require = 0)
     private void cobwebCounter$onBlockUpdate(BlockUpdateS2CPacket packet, CallbackInfo ci) {
         try {
-            if (packet.getState().getBlock() == Blocks.COBWEB) {
-                CobwebCounterClient.attributeCobwebPlacement(packet.getPos());
-            }
+            CobwebCounterClient.onBlockChange(packet.getPos(), packet.getState());
         } catch (Throwable ignored) {
             // Graceful cross-version safety
         }
@@ -35,11 +32,8 @@ public class ClientPlayNetworkHandlerMixin {
     @Inject(method = "onChunkDeltaUpdate", at = @At("TAIL"), require = 0)
     private void cobwebCounter$onChunkDeltaUpdate(ChunkDeltaUpdateS2CPacket packet, CallbackInfo ci) {
         try {
-            packet.visitUpdates((pos, state) -> {
-                if (state.getBlock() == Blocks.COBWEB) {
-                    CobwebCounterClient.attributeCobwebPlacement(pos.toImmutable());
-                }
-            });
+            // Buffered as a packed long, so the mutable position needs no copy
+            packet.visitUpdates(CobwebCounterClient::onBlockChange);
         } catch (Throwable ignored) {
             // Graceful cross-version safety
         }
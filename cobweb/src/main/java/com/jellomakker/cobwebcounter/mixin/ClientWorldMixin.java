@@ -2,7 +2,6 @@ package com.jellomakker.cobwebcounter.mixin;
 
 import com.jellomakker.cobwebcounter.CobwebCounterClient;
 import net.minecraft.block.BlockState;
-import net.minecraft.block.Blocks;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.util.math.BlockPos;
 import org.spongepowered.asm.mixin.Mixin;
@@ -22,9 +21,7 @@ public class ClientWorldMixin {
     @Inject(method = "handleBlockUpdate", at = @At("HEAD"), require = 0)
     private void cobwebCounter$onHandleBlockUpdate(BlockPos pos, BlockState state, int flags, CallbackInfo ci) {
         try {
-            if (state.getBlock() == Blocks.COBWEB) {
-                CobwebCounterClient.attributeCobwebPlacement(pos);
-            }
+            CobwebCounterClient.onBlockChange(pos, state);
         } catch (Throwable ignored) {
             // Cross-version safety
         }
@@ -1,14 +1,15 @@
 package com.jellomakker.cobwebcounter.mixin;
 
-import com.jellomakker.cobwebcounter.CobwebCounterClient;
 import com.jellomakker.cobwebcounter.config.CobwebCounterConfig;
-import net.minecraft.client.MinecraftClient;
+import com.jellomakker.cobwebcounter.render.CounterLabelHolder;
+import com.jellomakker.cobwebcounter.render.LabelCompositor;
 import net.minecraft.client.render.command.OrderedRenderCommandQueue;
 import net.minecraft.client.render.entity.EntityRenderer;
 import net.minecraft.client.render.entity.state.EntityRenderState;
-import net.minecraft.client.render.entity.state.PlayerEntityRenderState;
 import net.minecraft.client.render.state.CameraRenderState;
 import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.text.Text;
 import net.minecraft.util.math.Vec3d;
 import org.spongepowered.asm.mixin.Mixin;
@@ -16,41 +17,44 @@ import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
-import java.util.UUID;
-
 /**
- * Hooks into EntityRenderer.render() to draw the cobweb counter
- * above each player. Rendered at height + 0.9 to sit ABOVE the
- * golden apple counter (height + 0.6) when both mods are installed.
- * Calls queue.submitLabel() directly to bypass server name visibility.
+ * Hooks into EntityRenderer.render() to draw the counter label above each
+ * player. The label is combined with the other counter mods' by
+ * {@link LabelCompositor}; when another counter draws it, this hook does
+ * nothing. Calls queue.submitLabel() directly to bypass server name
+ * visibility.
+ *
+ * The label is composed in updateRenderState(), while the game still has
+ * the entity at hand, and kept on the render state through
+ * {@link CounterLabelHolder}; the render hook only reads it back.
  */
 @Mixin(EntityRenderer.class)
 public abstract class EntityRendererMixin<T, S extends EntityRenderState> {
 
+    @Inject(method = "updateRenderState", at = @At("RETURN"))
+    private void cobwebCounter$afterUpdateRenderState(Entity entity, S state, float tickProgress,
+                                                      CallbackInfo ci) {
+        if (!(state instanceof CounterLabelHolder holder)) return;
+        holder.cobwebCounter$setLabel(null);
+        if (!(entity instanceof PlayerEntity player) || !LabelCompositor.composing()) return;
+
+        // Players off screen never get here: the game culls entities against the frustum before extracting them
+        // Each part culls itself by its own counter's label distances
+        holder.cobwebCounter$setLabel(LabelCompositor.compose(player, state));
+    }
+
     @Inject(method = "render", at = @At("RETURN"))
     private void cobwebCounter$afterRender(S state, MatrixStack matrices,
                                             OrderedRenderCommandQueue queue,
                                             CameraRenderState cameraState,
                                             CallbackInfo ci) {
-        if (!(state instanceof PlayerEntityRenderState playerState)) return;
+        if (!(state instanceof CounterLabelHolder holder)) return;
+        Text counterText = holder.cobwebCounter$getLabel();
+        if (counterText == null) return;
 
         CobwebCounterConfig config = CobwebCounterConfig.get();
-        if (!config.enabled || !config.showOnPlayerName) return;
-
-        UUID uuid = CobwebCounterClient.getUuidFromEntityId(playerState.id);
-        if (uuid == null) return;
-
-        MinecraftClient client = MinecraftClient.getInstance();
-        if (!config.includeSelfDisplay && client.player != null
-                && uuid.equals(client.player.getUuid())) {
-            return;
-        }
-
-        int count = CobwebCounterClient.getCount(uuid);
-        if (count <= 0) return;
 
-        Text counterText = CobwebCounterClient.buildCounterText(count);
-        Vec3d labelPos = new Vec3d(0, state.height + 0.9, 0);
+        Vec3d labelPos = new Vec3d(0, state.height + 0.6, 0);
 
         // Call submitLabel directly — bypasses PlayerEntityRenderer's override
         // which may honour server team visibility settings that hide nametags.
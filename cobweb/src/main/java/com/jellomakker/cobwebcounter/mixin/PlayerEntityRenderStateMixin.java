@@ -0,0 +1,24 @@
+package com.jellomakker.cobwebcounter.mixin;
+
+import com.jellomakker.cobwebcounter.render.CounterLabelHolder;
+import net.minecraft.client.render.entity.state.PlayerEntityRenderState;
+import net.minecraft.text.Text;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+/** Gives every player render state a slot for its counter label. */
+@Mixin(PlayerEntityRenderState.class)
+public abstract class PlayerEntityRenderStateMixin implements CounterLabelHolder {
+    @Unique
+    private Text cobwebCounter$label;
+
+    @Override
+    public Text cobwebCounter$getLabel() {
+        return cobwebCounter$label;
+    }
+
+    @Override
+    public void cobwebCounter$setLabel(Text label) {
+        cobwebCounter$label = label;
+    }
+}
@@ -0,0 +1,293 @@
+package com.jellomakker.cobwebcounter.persist;
+
+import com.jellomakker.cobwebcounter.tracker.CobwebTracker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only journal of count deltas for one server, so counts survive a
+ * crash or reconnect.
+ *
+ * The client thread encodes deltas into a staging buffer and hands full
+ * buffers to a background writer through a lock-free queue, so a tick never
+ * waits on disk. The writer appends to a {@link FileChannel}, keeps its own
+ * running totals, and rewrites the file as one record per player once it has
+ * grown well past that size. Opening doesn't wait on disk either: the writer
+ * first waits for any previous writer of the same file, then reads the whole
+ * file in one go and folds it into totals, dropping a torn record at the
+ * tail from a crash. The tick picks the restored totals up with
+ * {@link #takeRestored()}; deltas staged before then queue up as usual and
+ * are appended after them. The file is read rather than memory-mapped so it
+ * can be truncated and replaced straight away on Windows, which refuses both
+ * while a mapping is live.
+ *
+ * Layout: magic and version ints, then 20-byte records (UUID msb, UUID lsb,
+ * delta). A record with the nil UUID resets every count.
+ */
+public final class CountJournal implements CobwebTracker.CountListener {
+    private static final int MAGIC = 0x43574A4C; // "CWJL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_BYTES = 20;
+
+    private static final int BUFFER_BYTES = RECORD_BYTES * 256;
+    /** Compact once the file holds this many records and several per player. */
+    private static final long COMPACT_MIN_RECORDS = 8192;
+    private static final int COMPACT_RATIO = 4;
+    private static final long FORCE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** Writer of each open or closing journal, so a quick reconnect's writer waits for the previous one to finish. */
+    private static final Map<Path, Thread> WRITERS = new ConcurrentHashMap<>();
+
+    private final Path file;
+    /** Previous writer of the same file, or null; set before this journal's writer starts. */
+    private Thread previous;
+
+    // Client thread
+    private ByteBuffer staging = ByteBuffer.allocate(BUFFER_BYTES);
+    private boolean restoreTaken;
+    /** Counts were reset before the restored ones were taken, so those are stale. */
+    private boolean resetBeforeRestore;
+
+    // Hand-off between the client thread and the writer
+    private final ConcurrentLinkedQueue<ByteBuffer> full = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<ByteBuffer> spare = new ConcurrentLinkedQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile boolean failed;
+    /** Totals read from disk, published once by the writer after reading the file. */
+    private volatile Map<UUID, Integer> restored;
+
+    // Writer thread
+    private FileChannel channel;
+    private final Map<UUID, Integer> totals = new HashMap<>();
+    private long records;
+
+    private CountJournal(Path file) {
+        this.file = file;
+        this.writer = new Thread(this::runWriter, "cobwebcounter-journal");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Starts the journal at {@code file} without touching the disk; the
+     * writer reads the file, creating it if missing, in the background.
+     */
+    public static CountJournal open(Path file) {
+        CountJournal journal = new CountJournal(file);
+        journal.previous = WRITERS.put(file, journal.writer);
+        journal.writer.start();
+        return journal;
+    }
+
+    /**
+     * Counts read from disk, once the writer has read them. Null until then
+     * and on every call after the first non-null result. Empty if counts
+     * were reset before they arrived, since the reset is journaled after them.
+     */
+    public Map<UUID, Integer> takeRestored() {
+        if (restoreTaken) return null;
+        Map<UUID, Integer> counts = restored;
+        if (counts == null) return null;
+        restoreTaken = true;
+        restored = null;
+        return resetBeforeRestore ? Map.of() : counts;
+    }
+
+    /** Whether reading or writing the file failed; nothing more is saved. */
+    public boolean failed() {
+        return failed;
+    }
+
+    @Override
+    public void countChanged(UUID uuid, int delta) {
+        if (staging.remaining() < RECORD_BYTES) flush();
+        staging.putLong(uuid.getMostSignificantBits());
+        staging.putLong(uuid.getLeastSignificantBits());
+        staging.putInt(delta);
+    }
+
+    @Override
+    public void countsReset() {
+        if (!restoreTaken) resetBeforeRestore = true;
+        if (staging.remaining() < RECORD_BYTES) flush();
+        staging.putLong(0L);
+        staging.putLong(0L);
+        staging.putInt(0);
+    }
+
+    /** Hands everything staged so far to the writer. Called once per tick. */
+    public void flush() {
+        if (staging.position() == 0) return;
+        staging.flip();
+        full.offer(staging);
+        ByteBuffer next = spare.poll();
+        staging = next != null ? next : ByteBuffer.allocate(BUFFER_BYTES);
+        LockSupport.unpark(writer);
+    }
+
+    /** Flushes and lets the writer finish in the background; never waits on disk. */
+    public void close() {
+        flush();
+        closed = true;
+        LockSupport.unpark(writer);
+    }
+
+    private void runWriter() {
+        try {
+            load();
+            long lastForce = System.nanoTime();
+            boolean dirty = false;
+            while (true) {
+                ByteBuffer batch;
+                while ((batch = full.poll()) != null) {
+                    for (int i = 0; i < batch.limit(); i += RECORD_BYTES) {
+                        apply(totals, batch.getLong(i), batch.getLong(i + 8), batch.getInt(i + 16));
+                    }
+                    records += batch.limit() / RECORD_BYTES;
+                    while (batch.hasRemaining()) {
+                        channel.write(batch);
+                    }
+                    batch.clear();
+                    spare.offer(batch);
+                    dirty = true;
+                }
+
+                if (records >= COMPACT_MIN_RECORDS && records > (long) totals.size() * COMPACT_RATIO) {
+                    compact();
+                    dirty = false;
+                    lastForce = System.nanoTime();
+                } else if (dirty && System.nanoTime() - lastForce >= FORCE_INTERVAL_NANOS) {
+                    channel.force(false);
+                    dirty = false;
+                    lastForce = System.nanoTime();
+                }
+
+                if (closed && full.isEmpty()) break;
+                LockSupport.parkNanos(FORCE_INTERVAL_NANOS);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            failed = true;
+        } finally {
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException ignored) {
+            }
+            WRITERS.remove(file, Thread.currentThread());
+        }
+    }
+
+    /**
+     * Waits for the previous writer of the file to finish, reads the file
+     * into {@link #totals}, opens it for appending and publishes the totals
+     * for the tick.
+     */
+    private void load() throws IOException {
+        if (previous != null) {
+            try {
+                previous.join();
+            } catch (InterruptedException e) {
+                throw new IOException("Interrupted waiting for the previous writer of " + file, e);
+            }
+            previous = null;
+        }
+        Files.createDirectories(file.getParent());
+
+        if (Files.exists(file) && Files.size(file) >= HEADER_BYTES) {
+            ByteBuffer data;
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                data = ByteBuffer.allocate((int) in.size());
+                while (data.hasRemaining()) {
+                    if (in.read(data) < 0) break;
+                }
+            }
+            data.flip();
+            if (data.getInt() != MAGIC || data.getInt() != VERSION) {
+                throw new IOException("Not a count journal: " + file);
+            }
+            while (data.remaining() >= RECORD_BYTES) {
+                apply(totals, data.getLong(), data.getLong(), data.getInt());
+                records++;
+            }
+        }
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (records == 0) {
+            channel.truncate(0);
+            writeHeader(channel);
+        } else {
+            // Drop a torn tail record so appends stay aligned
+            channel.truncate(HEADER_BYTES + records * RECORD_BYTES);
+            channel.position(channel.size());
+        }
+        restored = new HashMap<>(totals);
+    }
+
+    /** Rewrites the journal as one record per player and swaps it in atomically. */
+    private void compact() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(out);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            for (Map.Entry<UUID, Integer> entry : totals.entrySet()) {
+                if (buffer.remaining() < RECORD_BYTES) {
+                    writeFully(out, buffer);
+                }
+                buffer.putLong(entry.getKey().getMostSignificantBits());
+                buffer.putLong(entry.getKey().getLeastSignificantBits());
+                buffer.putInt(entry.getValue());
+            }
+            writeFully(out, buffer);
+            out.force(false);
+        }
+
+        channel.close();
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        records = totals.size();
+    }
+
+    private static void apply(Map<UUID, Integer> totals, long msb, long lsb, int delta) {
+        if (msb == 0L && lsb == 0L) {
+            totals.clear();
+            return;
+        }
+        UUID uuid = new UUID(msb, lsb);
+        int total = totals.getOrDefault(uuid, 0) + delta;
+        if (total == 0) {
+            totals.remove(uuid);
+        } else {
+            totals.put(uuid, total);
+        }
+    }
+
+    private static void writeHeader(FileChannel out) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION);
+        writeFully(out, header);
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,14 @@
+package com.jellomakker.cobwebcounter.render;
+
+import net.minecraft.text.Text;
+
+/**
+ * Added to the player render state by a mixin: the combined counter label,
+ * composed once while the state is extracted so the render hook only reads
+ * it back. Null when no label is drawn for the player.
+ */
+public interface CounterLabelHolder {
+    Text cobwebCounter$getLabel();
+
+    void cobwebCounter$setLabel(Text label);
+}
@@ -0,0 +1,73 @@
+package com.jellomakker.cobwebcounter.render;
+
+import com.jellomakker.cobwebcounter.CobwebCounterClient;
+import com.jellomakker.cobwebcounter.tracker.WebStats;
+import net.minecraft.text.Text;
+
+import java.util.Arrays;
+
+/**
+ * Prebuilt counter labels indexed by count, so the renderer does an array
+ * read instead of building a new text tree every frame. Counts past the
+ * cache size are built on demand. Render thread only.
+ */
+public final class CounterLabels {
+    private static final int CACHE_SIZE = 256;
+    private static final Text[] LABELS = new Text[CACHE_SIZE];
+
+    /** Labels with web statistics by stats slot, with the stats version and count each was built from. */
+    private static final Text[] STATS_LABELS = new Text[WebStats.CAPACITY];
+    private static final int[] STATS_VERSIONS = new int[WebStats.CAPACITY];
+    private static final int[] STATS_COUNTS = new int[WebStats.CAPACITY];
+
+    /** Bumped whenever something the labels depend on changes. */
+    private static int version;
+    private static int cachedVersion;
+
+    private CounterLabels() {
+    }
+
+    public static Text get(int count) {
+        if (cachedVersion != version) clearCache();
+        if (count < 0 || count >= CACHE_SIZE) {
+            return CobwebCounterClient.buildCounterText(count);
+        }
+
+        Text label = LABELS[count];
+        if (label == null) {
+            label = CobwebCounterClient.buildCounterText(count);
+            LABELS[count] = label;
+        }
+        return label;
+    }
+
+    /** The counter label followed by a player's web statistics; rebuilt only when either changes. */
+    public static Text withStats(int count, int slot) {
+        if (cachedVersion != version) clearCache();
+
+        int statsVersion = CobwebCounterClient.getWebStats().version(slot);
+        Text label = STATS_LABELS[slot];
+        if (label == null || STATS_VERSIONS[slot] != statsVersion || STATS_COUNTS[slot] != count) {
+            label = CobwebCounterClient.buildStatsText(count, slot);
+            STATS_LABELS[slot] = label;
+            STATS_VERSIONS[slot] = statsVersion;
+            STATS_COUNTS[slot] = count;
+        }
+        return label;
+    }
+
+    private static void clearCache() {
+        Arrays.fill(LABELS, null);
+        Arrays.fill(STATS_LABELS, null);
+        cachedVersion = version;
+    }
+
+    public static int version() {
+        return version;
+    }
+
+    /** Drops every cached label; they are rebuilt lazily on next use. */
+    public static void invalidate() {
+        version++;
+    }
+}
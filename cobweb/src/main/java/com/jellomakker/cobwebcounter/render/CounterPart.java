@@ -0,0 +1,52 @@
+package com.jellomakker.cobwebcounter.render;
+
+import com.jellomakker.cobwebcounter.CobwebCounterClient;
+import com.jellomakker.cobwebcounter.config.CobwebCounterConfig;
+import com.jellomakker.cobwebcounter.tracker.WebStats;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.render.entity.state.EntityRenderState;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.text.Style;
+import net.minecraft.text.StyleSpriteSource;
+import net.minecraft.text.Text;
+
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+/**
+ * The cobweb counter's part of the combined player label, registered as the
+ * {@link LabelCompositor#ENTRYPOINT} entrypoint. Null when the player has
+ * nothing to show, the counter is hidden or the player is past this
+ * counter's label distance; just the icon past its icon-only distance.
+ */
+public final class CounterPart implements BiFunction<PlayerEntity, EntityRenderState, Text> {
+    private static final Text ICON = Text.literal(CobwebCounterClient.COBWEB_ICON)
+            .setStyle(Style.EMPTY.withFont(new StyleSpriteSource.Font(CobwebCounterClient.COBWEB_FONT)));
+
+    @Override
+    public Text apply(PlayerEntity player, EntityRenderState state) {
+        CobwebCounterConfig config = CobwebCounterConfig.get();
+        if (!config.enabled || !config.showOnPlayerName) return null;
+        double distance = state.squaredDistanceToCamera;
+        if (LabelCompositor.beyond(distance, config.labelMaxDistance)) return null;
+
+        UUID uuid = player.getUuid();
+
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (!config.includeSelfDisplay && client.player != null
+                && uuid.equals(client.player.getUuid())) {
+            return null;
+        }
+
+        int count = CobwebCounterClient.getCount(uuid);
+        WebStats stats = CobwebCounterClient.getWebStats();
+        int statsSlot = config.showWebStats ? stats.slot(uuid) : WebStats.NONE;
+        // Players who only broke webs still get a label when stats are shown
+        if (count <= 0 && (statsSlot == WebStats.NONE || stats.broken(statsSlot) == 0)) return null;
+
+        if (LabelCompositor.beyond(distance, config.iconOnlyDistance)) return ICON;
+        return statsSlot != WebStats.NONE
+                ? CounterLabels.withStats(count, statsSlot)
+                : CounterLabels.get(count);
+    }
+}
@@ -0,0 +1,155 @@
+package com.jellomakker.cobwebcounter.render;
+
+import com.jellomakker.cobwebcounter.CobwebCounterClient;
+import net.fabricmc.loader.api.FabricLoader;
+import net.fabricmc.loader.api.entrypoint.EntrypointContainer;
+import net.minecraft.client.render.entity.state.EntityRenderState;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Combines the labels of every installed counter mod into one label per
+ * player, so the golden apple, pot and cobweb counters submit one label
+ * between them instead of three at overlapping heights.
+ *
+ * Each counter registers a {@link BiFunction} from the player and their
+ * render state to its part of the label (null for none) under the
+ * {@link #ENTRYPOINT} entrypoint. Only JDK and game types cross mod
+ * boundaries, so the mods need no shared library. Each part applies its
+ * own counter's label and icon-only distances to the render state's
+ * camera distance, so those settings hold whichever counter composes.
+ * Every mod ships this class, and each one independently agrees that the
+ * first installed counter in {@link #ORDER} draws the label; the others
+ * skip their render hook. Combined labels are cached by the identity
+ * of their parts, which the counters already cache, so a player whose
+ * counts did not change reuses the same text. Composed once per player
+ * per frame, while the player's render state is extracted. Render thread
+ * only.
+ */
+public final class LabelCompositor {
+    /** Versioned with the part contract, so a counter built against an older one is never cast to this one. */
+    public static final String ENTRYPOINT = "jellocounters:label/v2";
+
+    /** Order of the parts in the combined label; unknown counters go last, by mod id. */
+    private static final List<String> ORDER = List.of("goldenapplecounter", "potcounter", "cobwebcounter");
+    private static final String SEPARATOR = "  ";
+    private static final int CACHE_SIZE = 256;
+
+    private static BiFunction<PlayerEntity, EntityRenderState, Text>[] parts;
+    private static boolean composing;
+    private static Text[] scratch;
+
+    private static final Text[][] CACHED_PARTS = new Text[CACHE_SIZE][];
+    private static final Text[] CACHED_LABELS = new Text[CACHE_SIZE];
+
+    private LabelCompositor() {
+    }
+
+    /** Whether this mod draws the combined label; if not, another counter does. */
+    public static boolean composing() {
+        if (parts == null) init();
+        return composing;
+    }
+
+    /** Whether a label at this squared distance is past {@code blocks}; 0 blocks means no limit. */
+    public static boolean beyond(double squaredDistance, int blocks) {
+        return blocks > 0 && squaredDistance > (double) blocks * blocks;
+    }
+
+    /** The combined label for a player, or null if no counter has anything to show. */
+    public static Text compose(PlayerEntity player, EntityRenderState state) {
+        if (parts == null) init();
+
+        int n = 0;
+        int hash = 1;
+        for (int i = 0; i < parts.length; i++) {
+            Text text;
+            try {
+                text = parts[i].apply(player, state);
+            } catch (Throwable ignored) {
+                // One counter failing must not hide the others
+                continue;
+            }
+            if (text == null) continue;
+            scratch[n++] = text;
+            hash = hash * 31 + System.identityHashCode(text);
+        }
+        if (n == 0) return null;
+        if (n == 1) return scratch[0];
+
+        int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        Text[] cached = CACHED_PARTS[slot];
+        if (cached != null && sameParts(cached, n)) return CACHED_LABELS[slot];
+
+        MutableText label = Text.empty();
+        for (int i = 0; i < n; i++) {
+            if (i > 0) label.append(SEPARATOR);
+            label.append(scratch[i]);
+        }
+        CACHED_PARTS[slot] = Arrays.copyOf(scratch, n);
+        CACHED_LABELS[slot] = label;
+        return label;
+    }
+
+    private static boolean sameParts(Text[] cached, int n) {
+        if (cached.length != n) return false;
+        for (int i = 0; i < n; i++) {
+            if (cached[i] != scratch[i]) return false;
+        }
+        return true;
+    }
+
+    /** Every counter's entrypoint under {@code key}, in {@link #ORDER}; empty if they can't be read. */
+    static <T> List<EntrypointContainer<T>> ordered(String key, Class<T> type) {
+        List<EntrypointContainer<T>> containers;
+        try {
+            containers = new ArrayList<>(FabricLoader.getInstance().getEntrypointContainers(key, type));
+        } catch (Throwable ignored) {
+            return new ArrayList<>();
+        }
+        containers.sort(Comparator.comparingInt((EntrypointContainer<T> c) -> rank(modId(c)))
+                .thenComparing(LabelCompositor::modId));
+        return containers;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void init() {
+        List<BiFunction> loaded = new ArrayList<>();
+        String first = null;
+        for (EntrypointContainer<BiFunction> container : ordered(ENTRYPOINT, BiFunction.class)) {
+            try {
+                loaded.add(container.getEntrypoint());
+            } catch (Throwable ignored) {
+                // A part that can't be created is left out, and every counter skips it alike
+                continue;
+            }
+            if (first == null) first = modId(container);
+        }
+
+        if (loaded.isEmpty()) {
+            // Entrypoint missing or unreadable: draw this mod's own part alone
+            parts = new BiFunction[]{new CounterPart()};
+            composing = true;
+        } else {
+            parts = loaded.toArray(new BiFunction[0]);
+            composing = CobwebCounterClient.MOD_ID.equals(first);
+        }
+        scratch = new Text[parts.length];
+    }
+
+    private static String modId(EntrypointContainer<?> container) {
+        return container.getProvider().getMetadata().getId();
+    }
+
+    private static int rank(String modId) {
+        int rank = ORDER.indexOf(modId);
+        return rank >= 0 ? rank : ORDER.size();
+    }
+}
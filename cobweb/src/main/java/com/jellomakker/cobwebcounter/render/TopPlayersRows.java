@@ -0,0 +1,80 @@
+package com.jellomakker.cobwebcounter.render;
+
+import com.jellomakker.cobwebcounter.CobwebCounterClient;
+import com.jellomakker.cobwebcounter.config.CobwebCounterConfig;
+import com.jellomakker.cobwebcounter.tracker.Ranking;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.text.Text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * The cobweb counter's rows in the top players panel, registered as the
+ * {@link TopPlayersHud#ENTRYPOINT} entrypoint. Read straight off the
+ * tracker's {@link Ranking}; the rows are only looked at again when the
+ * ranking or the labels change, and a row is only rebuilt when its player
+ * or label did.
+ */
+public final class TopPlayersRows implements Supplier<List<Text>> {
+    private final List<Text> rows = new ArrayList<>();
+    private final List<UUID> rowPlayers = new ArrayList<>();
+    private final List<Text> rowLabels = new ArrayList<>();
+
+    private int builtRanking = -1;
+    private int builtLabels = -1;
+    private int builtLimit = -1;
+    private UUID builtExcluded;
+
+    @Override
+    public List<Text> get() {
+        CobwebCounterConfig config = CobwebCounterConfig.get();
+        if (!config.enabled || config.topPlayers <= 0) return List.of();
+
+        MinecraftClient client = MinecraftClient.getInstance();
+        UUID excluded = !config.includeSelfDisplay && client.player != null ? client.player.getUuid() : null;
+        Ranking ranking = CobwebCounterClient.getRanking();
+        if (builtRanking == ranking.version() && builtLabels == CounterLabels.version()
+                && builtLimit == config.topPlayers && Objects.equals(excluded, builtExcluded)) {
+            return rows;
+        }
+        builtRanking = ranking.version();
+        builtLabels = CounterLabels.version();
+        builtLimit = config.topPlayers;
+        builtExcluded = excluded;
+
+        List<UUID> players = new ArrayList<>(config.topPlayers);
+        List<Text> labels = new ArrayList<>(config.topPlayers);
+        List<Text> built = new ArrayList<>(config.topPlayers);
+        for (int rank = 0; rank < ranking.size() && built.size() < config.topPlayers; rank++) {
+            UUID uuid = ranking.uuid(rank);
+            if (uuid.equals(excluded)) continue;
+            Text label = CounterLabels.get(ranking.value(rank));
+            players.add(uuid);
+            labels.add(label);
+            built.add(row(client, uuid, label));
+        }
+        rows.clear();
+        rows.addAll(built);
+        rowPlayers.clear();
+        rowPlayers.addAll(players);
+        rowLabels.clear();
+        rowLabels.addAll(labels);
+        return rows;
+    }
+
+    /** The previous row for the same player and label if there is one, else a new one. */
+    private Text row(MinecraftClient client, UUID uuid, Text label) {
+        for (int i = 0; i < rowPlayers.size(); i++) {
+            if (rowPlayers.get(i).equals(uuid) && rowLabels.get(i) == label) return rows.get(i);
+        }
+
+        PlayerEntity player = client.world != null ? client.world.getPlayerByUuid(uuid) : null;
+        Text name = player != null ? player.getName() : Text.literal(uuid.toString().substring(0, 8));
+        return Text.empty().append(name).append("  ").append(label);
+    }
+}
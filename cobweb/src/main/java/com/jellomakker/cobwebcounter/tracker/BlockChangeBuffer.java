@@ -0,0 +1,38 @@
+package com.jellomakker.cobwebcounter.tracker;
+
+import java.util.Arrays;
+
+/**
+ * Packed block positions collected during a tick and drained once at its
+ * end. A growable primitive array, so buffering never boxes; the capacity
+ * reached in a busy tick is kept for the next. Client thread only.
+ */
+public final class BlockChangeBuffer {
+    private long[] positions;
+    private int size;
+
+    public BlockChangeBuffer(int initialCapacity) {
+        this.positions = new long[Math.max(initialCapacity, 4)];
+    }
+
+    public void add(long packedPos) {
+        if (size == positions.length) positions = Arrays.copyOf(positions, size * 2);
+        positions[size++] = packedPos;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long get(int index) {
+        return positions[index];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
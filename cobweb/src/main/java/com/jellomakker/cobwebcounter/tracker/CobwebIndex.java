@@ -0,0 +1,290 @@
+package com.jellomakker.cobwebcounter.tracker;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Positions of the cobwebs known to be in the world, so a block update that
+ * re-sends an existing web is not mistaken for a placement.
+ *
+ * Positions are grouped by chunk column: an open-addressing map from the
+ * chunk key to a primitive set of packed block positions. A lookup is two
+ * hash probes and never boxes, and unloading a chunk drops its whole set at
+ * once. Both tables use backward-shift deletion, so they never fill with
+ * tombstones. {@link Long#MIN_VALUE} is used as the empty marker; it is not
+ * a position inside the world border. Client thread only.
+ *
+ * Each web carries a tag naming the {@link WebStats#owner} it was credited
+ * to and the tick it was placed, packed into a long; webs that were already
+ * there when their chunk loaded are {@link #UNTAGGED}.
+ */
+public final class CobwebIndex {
+    public static final long UNTAGGED = 0L;
+    /** Returned by {@link #remove} when no web was known at the position. */
+    public static final long MISSING = -1L;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] chunkKeys = new long[16];
+    private PositionSet[] chunkSets = new PositionSet[16];
+    private int chunkMask = 15;
+    private int chunks;
+    private int size;
+
+    /** Known cobwebs across every chunk. */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Records a cobweb; returns true if the position was not already known, i.e. this is a new web. */
+    public boolean add(long pos) {
+        long chunk = chunkKey(pos);
+        int slot = chunkSlot(chunk);
+        PositionSet set = chunkSets[slot];
+        if (set == null) {
+            set = new PositionSet();
+            chunkKeys[slot] = chunk;
+            chunkSets[slot] = set;
+            if (++chunks * 2 > chunkKeys.length) growChunks();
+        }
+        if (!set.add(pos)) return false;
+        size++;
+        return true;
+    }
+
+    /** Tags a known web; returns false if no web is known at the position. */
+    public boolean setTag(long pos, long tag) {
+        if (size == 0) return false;
+        PositionSet set = chunkSets[chunkSlot(chunkKey(pos))];
+        return set != null && set.setTag(pos, tag);
+    }
+
+    /**
+     * Forgets a position, e.g. because a different block replaced the web.
+     * Returns the web's tag, or {@link #MISSING} if no web was known there.
+     */
+    public long remove(long pos) {
+        if (size == 0) return MISSING;
+        long chunk = chunkKey(pos);
+        int slot = chunkSlot(chunk);
+        PositionSet set = chunkSets[slot];
+        if (set == null) return MISSING;
+        long tag = set.remove(pos);
+        if (tag == MISSING) return MISSING;
+        size--;
+        if (set.size == 0) removeChunk(slot);
+        return tag;
+    }
+
+    public boolean contains(long pos) {
+        if (size == 0) return false;
+        PositionSet set = chunkSets[chunkSlot(chunkKey(pos))];
+        return set != null && set.contains(pos);
+    }
+
+    /** Drops every known web in a chunk column, handing each tagged one's tag to {@code dropped}. */
+    public void unloadChunk(int chunkX, int chunkZ, LongConsumer dropped) {
+        if (size == 0) return;
+        int slot = chunkSlot(chunkKey(chunkX, chunkZ));
+        PositionSet set = chunkSets[slot];
+        if (set == null) return;
+        set.forEachTag(dropped);
+        size -= set.size;
+        removeChunk(slot);
+    }
+
+    /** Untags every web, e.g. when the slots the tags point at are reset. */
+    public void clearTags() {
+        for (PositionSet set : chunkSets) {
+            if (set != null) set.clearTags();
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(chunkSets, null);
+        chunks = 0;
+        size = 0;
+    }
+
+    public static long tag(int owner, long tick) {
+        return (long) (owner + 1) << 32 | (tick & 0xFFFFFFFFL);
+    }
+
+    /** {@link WebStats#owner} named by a tag, or -1 if untagged. */
+    public static int owner(long tag) {
+        return (int) (tag >>> 32) - 1;
+    }
+
+    /** Ticks from a tag's placement until {@code now}. */
+    public static int age(long tag, long now) {
+        return (int) now - (int) tag;
+    }
+
+    /** Chunk key in the game's packed chunk position layout (x low, z high). */
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return (chunkX & 0xFFFFFFFFL) | (chunkZ & 0xFFFFFFFFL) << 32;
+    }
+
+    /** Chunk key of a packed block position (x 26 bits at 38, z 26 bits at 12). */
+    private static long chunkKey(long pos) {
+        int x = (int) (pos >> 38);
+        int z = (int) (pos << 26 >> 38);
+        return chunkKey(x >> 4, z >> 4);
+    }
+
+    /** Slot holding {@code chunk}, or the empty slot where it would go. */
+    private int chunkSlot(long chunk) {
+        int i = mix(chunk) & chunkMask;
+        while (chunkSets[i] != null && chunkKeys[i] != chunk) {
+            i = (i + 1) & chunkMask;
+        }
+        return i;
+    }
+
+    private void removeChunk(int slot) {
+        int gap = slot;
+        int j = slot;
+        while (true) {
+            j = (j + 1) & chunkMask;
+            if (chunkSets[j] == null) break;
+            int home = mix(chunkKeys[j]) & chunkMask;
+            // Move j into the gap if its home position is not in (gap, j]
+            if (((j - home) & chunkMask) >= ((j - gap) & chunkMask)) {
+                chunkKeys[gap] = chunkKeys[j];
+                chunkSets[gap] = chunkSets[j];
+                gap = j;
+            }
+        }
+        chunkSets[gap] = null;
+        chunks--;
+    }
+
+    private void growChunks() {
+        long[] oldKeys = chunkKeys;
+        PositionSet[] oldSets = chunkSets;
+        chunkKeys = new long[oldKeys.length * 2];
+        chunkSets = new PositionSet[oldKeys.length * 2];
+        chunkMask = chunkKeys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldSets[j] == null) continue;
+            int i = chunkSlot(oldKeys[j]);
+            chunkKeys[i] = oldKeys[j];
+            chunkSets[i] = oldSets[j];
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /** Open-addressing set of packed positions within one chunk, with a tag per position. */
+    private static final class PositionSet {
+        private long[] keys = newTable(8);
+        private long[] tags = new long[8];
+        private int mask = 7;
+        private int size;
+
+        boolean contains(long pos) {
+            int i = mix(pos) & mask;
+            while (true) {
+                long k = keys[i];
+                if (k == pos) return true;
+                if (k == EMPTY) return false;
+                i = (i + 1) & mask;
+            }
+        }
+
+        boolean add(long pos) {
+            int i = mix(pos) & mask;
+            while (true) {
+                long k = keys[i];
+                if (k == pos) return false;
+                if (k == EMPTY) break;
+                i = (i + 1) & mask;
+            }
+            keys[i] = pos;
+            tags[i] = UNTAGGED;
+            if (++size * 2 > keys.length) grow();
+            return true;
+        }
+
+        boolean setTag(long pos, long tag) {
+            int i = mix(pos) & mask;
+            while (true) {
+                long k = keys[i];
+                if (k == pos) {
+                    tags[i] = tag;
+                    return true;
+                }
+                if (k == EMPTY) return false;
+                i = (i + 1) & mask;
+            }
+        }
+
+        long remove(long pos) {
+            int i = mix(pos) & mask;
+            while (keys[i] != pos) {
+                if (keys[i] == EMPTY) return MISSING;
+                i = (i + 1) & mask;
+            }
+            long tag = tags[i];
+
+            int gap = i;
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                long k = keys[j];
+                if (k == EMPTY) break;
+                int home = mix(k) & mask;
+                // Move j into the gap if its home position is not in (gap, j]
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = k;
+                    tags[gap] = tags[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = EMPTY;
+            size--;
+            return tag;
+        }
+
+        void forEachTag(LongConsumer consumer) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY && tags[i] != UNTAGGED) consumer.accept(tags[i]);
+            }
+        }
+
+        void clearTags() {
+            Arrays.fill(tags, UNTAGGED);
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldTags = tags;
+            keys = newTable(oldKeys.length * 2);
+            tags = new long[oldKeys.length * 2];
+            mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                long k = oldKeys[j];
+                if (k == EMPTY) continue;
+                int i = mix(k) & mask;
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = k;
+                tags[i] = oldTags[j];
+            }
+        }
+
+        private static long[] newTable(int capacity) {
+            long[] table = new long[capacity];
+            Arrays.fill(table, EMPTY);
+            return table;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.jellomakker.cobwebcounter.tracker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cobweb counting pipeline without any game types: player lifecycle,
+ * per-tick placement de-duplication and nearest-player attribution. The
+ * client feeds it from entity events and block update hooks; the capture
+ * replayer feeds it from a recording.
+ */
+public final class CobwebTracker {
+    /** Placements are attributed to the nearest player within this many blocks of the block centre. */
+    public static final double ATTRIBUTION_RANGE = 7.0;
+
+    /** Fills in the current player positions when a placement first needs attributing in a tick. */
+    public interface PositionSource {
+        void snapshot(PlayerPositions into);
+    }
+
+    /** Told about every count change, e.g. to persist it. */
+    public interface CountListener {
+        void countChanged(UUID uuid, int delta);
+
+        void countsReset();
+    }
+
+    /** How long the count of a player who left tracking range is kept: 30 minutes. */
+    public static final long DEPARTED_TTL_TICKS = 30 * 60 * 20;
+    /** Most departed players remembered at once; the longest-gone are forgotten first. */
+    public static final int DEPARTED_CAPACITY = 4096;
+
+    private final Map<UUID, Integer> counts = new ConcurrentHashMap<>();
+
+    /** Counts to give players when they are first loaded, e.g. restored from disk. Consumed on use. */
+    private final Map<UUID, Integer> seeds = new HashMap<>();
+
+    private CountListener listener;
+
+    /** Entity network ID → UUID, read by the renderer mixin. */
+    private final Map<Integer, UUID> idToUuid = new ConcurrentHashMap<>();
+
+    /** UUIDs of players currently loaded in the client world. */
+    private final Set<UUID> loaded = new HashSet<>();
+
+    /**
+     * Players whose entity unloaded this tick. At the end of the tick their
+     * counts move to {@link #departedCounts} unless they were loaded again
+     * (e.g. a same-tick respawn).
+     */
+    private final List<UUID> departed = new ArrayList<>();
+
+    /** Counts of players who left, given back when they are loaded again. */
+    private final DepartedCounts departedCounts = new DepartedCounts(DEPARTED_CAPACITY, DEPARTED_TTL_TICKS);
+
+    /** Ticks since the tracker was created; times departures. */
+    private long tick;
+
+    /**
+     * Packed positions already counted this tick, so multiple hooks firing
+     * for the same placement don't double-count.
+     */
+    private final TickStampedLongSet countedThisTick = new TickStampedLongSet(256);
+
+    private final PlayerPositions positions = new PlayerPositions();
+    private boolean positionsReady;
+
+    /** Loaded players by count, for the top players panel. */
+    private final Ranking ranking = new Ranking();
+
+    public void setListener(CountListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Counts restored from disk, by UUID, added to whatever was counted
+     * before they arrived. Loaded players pick theirs up now; everyone else
+     * when they are next loaded.
+     */
+    public void seed(Map<UUID, Integer> restored) {
+        seeds.clear();
+        seeds.putAll(restored);
+        for (UUID uuid : loaded) {
+            applySeed(uuid);
+            rank(uuid);
+        }
+    }
+
+    public void onPlayerLoad(int entityId, UUID uuid) {
+        idToUuid.put(entityId, uuid);
+        loaded.add(uuid);
+        int count = departedCounts.take(uuid);
+        if (count != DepartedCounts.NONE) counts.putIfAbsent(uuid, count);
+        if (!seeds.isEmpty()) applySeed(uuid);
+        rank(uuid);
+    }
+
+    public void onPlayerUnload(int entityId, UUID uuid) {
+        idToUuid.remove(entityId);
+        loaded.remove(uuid);
+        departed.add(uuid);
+    }
+
+    /** Entity ids are per world, so every binding is dropped on a world switch. */
+    public void onWorldChange() {
+        idToUuid.clear();
+        departed.addAll(loaded);
+        loaded.clear();
+    }
+
+    /**
+     * A cobweb appeared at the given block. Attributes it to the nearest
+     * player unless the same block was already counted this tick. Positions
+     * are snapshotted at most once per tick.
+     *
+     * @param excluded player that never gets counted (self), or null
+     * @return the player credited with the web, or null if nobody was
+     */
+    public UUID onCobweb(int x, int y, int z, UUID excluded, PositionSource source) {
+        if (!countedThisTick.add(pack(x, y, z))) return null;
+
+        UUID uuid = nearestPlayer(x, y, z, excluded, source);
+        if (uuid == null) return null;
+        counts.merge(uuid, 1, Integer::sum);
+        rank(uuid);
+        if (listener != null) listener.countChanged(uuid, 1);
+        return uuid;
+    }
+
+    /**
+     * The player nearest the given block within {@link #ATTRIBUTION_RANGE},
+     * or null if there is none or it is {@code excluded}. Shares the tick's
+     * position snapshot with {@link #onCobweb}.
+     */
+    public UUID nearestPlayer(int x, int y, int z, UUID excluded, PositionSource source) {
+        if (!positionsReady) {
+            positions.clear();
+            source.snapshot(positions);
+            positionsReady = true;
+        }
+
+        int closest = positions.nearest(x + 0.5, y + 0.5, z + 0.5, ATTRIBUTION_RANGE);
+        if (closest < 0) return null;
+
+        UUID uuid = positions.uuid(closest);
+        return uuid.equals(excluded) ? null : uuid;
+    }
+
+    /** Sets aside the counts of players that unloaded this tick and did not come back. */
+    public void endTick() {
+        countedThisTick.nextTick();
+        positionsReady = false;
+
+        for (int i = 0; i < departed.size(); i++) {
+            UUID uuid = departed.get(i);
+            if (!loaded.contains(uuid)) {
+                Integer count = counts.remove(uuid);
+                if (count != null) departedCounts.put(uuid, count, tick);
+                ranking.remove(uuid);
+            }
+        }
+        departed.clear();
+        departedCounts.expire(tick);
+        tick++;
+    }
+
+    private void rank(UUID uuid) {
+        ranking.set(uuid, counts.getOrDefault(uuid, 0));
+    }
+
+    private void applySeed(UUID uuid) {
+        Integer seed = seeds.remove(uuid);
+        if (seed != null) counts.merge(uuid, seed, Integer::sum);
+    }
+
+    /** Current tick, counted from when the tracker was created. */
+    public long tick() {
+        return tick;
+    }
+
+    public int getCount(UUID playerUuid) {
+        return counts.getOrDefault(playerUuid, 0);
+    }
+
+    public UUID getUuid(int entityId) {
+        return idToUuid.get(entityId);
+    }
+
+    /** Loaded players by entity id; the live view backing {@link #getUuid}. */
+    public Map<Integer, UUID> players() {
+        return idToUuid;
+    }
+
+    /** Loaded players with a count, highest first. */
+    public Ranking ranking() {
+        return ranking;
+    }
+
+    /** Counted players; the live view backing {@link #getCount}. */
+    public Map<UUID, Integer> counts() {
+        return counts;
+    }
+
+    public void resetCounts() {
+        counts.clear();
+        departedCounts.clear();
+        seeds.clear();
+        ranking.clear();
+        if (listener != null) listener.countsReset();
+        countedThisTick.nextTick();
+    }
+
+    /** Forgets every player, e.g. on disconnect. Not a reset: listeners are not told. */
+    public void clear() {
+        counts.clear();
+        departedCounts.clear();
+        seeds.clear();
+        idToUuid.clear();
+        loaded.clear();
+        departed.clear();
+        ranking.clear();
+        countedThisTick.nextTick();
+    }
+
+    /** Same bit layout as the game's packed block positions (x 26, z 26, y 12 bits). */
+    static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | ((long) y & 0xFFFL);
+    }
+}
@@ -0,0 +1,89 @@
+package com.jellomakker.cobwebcounter.tracker;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing set of longs whose entries only live for the current
+ * tick. Every slot carries the tick it was written in, and a slot stamped
+ * with an older tick counts as empty, so {@link #nextTick()} forgets every
+ * entry without touching the table. Adds never allocate unless the table
+ * has to grow, which happens when half the slots hold entries of the
+ * current tick.
+ *
+ * Within a tick slots only ever go from stale to live, so a probe can stop
+ * at the first stale slot: every live key was placed before it.
+ */
+public final class TickStampedLongSet {
+    private long[] keys;
+    private int[] stamps;
+    private int mask;
+    /** Current tick; starts at 1 so the zeroed stamps read as stale. */
+    private int tick = 1;
+    private int size;
+
+    public TickStampedLongSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 4) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.stamps = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /** Entries added this tick. */
+    public int size() {
+        return size;
+    }
+
+    /** Adds a key for this tick; returns false if it was already added this tick. */
+    public boolean add(long key) {
+        int i = mix(key) & mask;
+        while (stamps[i] == tick) {
+            if (keys[i] == key) return false;
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        stamps[i] = tick;
+        if (++size * 2 > keys.length) grow();
+        return true;
+    }
+
+    public boolean contains(long key) {
+        int i = mix(key) & mask;
+        while (stamps[i] == tick) {
+            if (keys[i] == key) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /** Forgets every entry by moving on to the next tick. */
+    public void nextTick() {
+        size = 0;
+        if (++tick == 0) {
+            // Wrapped after 2^32 ticks: old stamps could read as live again
+            Arrays.fill(stamps, 0);
+            tick = 1;
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldStamps = stamps;
+        keys = new long[oldKeys.length * 2];
+        stamps = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldStamps[j] != tick) continue;
+            int i = mix(oldKeys[j]) & mask;
+            while (stamps[i] == tick) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            stamps[i] = tick;
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
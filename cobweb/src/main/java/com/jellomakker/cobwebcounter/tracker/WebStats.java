@@ -0,0 +1,219 @@
+package com.jellomakker.cobwebcounter.tracker;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Per-player cobweb statistics beyond the placement count: how many of a
+ * player's webs are standing, how long their removed webs lasted, and how
+ * many webs they broke.
+ *
+ * Players get a slot in fixed primitive columns the first time they show
+ * up, found through an open-addressing index on the UUID's bits, so a
+ * lookup never boxes. There are {@link #CAPACITY} slots; once every one is
+ * taken, a new player takes over the slot of the least recently active
+ * one, so memory stays fixed however many players pass through. Webs name
+ * their owner by {@link #owner}, which includes a generation bumped
+ * whenever a slot changes hands, so webs of an evicted player are never
+ * credited to the next one. Each slot also carries a version that changes
+ * with its numbers, for callers caching anything built from them. Client
+ * thread only.
+ */
+public final class WebStats {
+    public static final int CAPACITY = 1024;
+    public static final int NONE = -1;
+
+    private static final int SLOT_BITS = 10;
+    /** Keeps owners below 2^30, so they fit a web tag with room to spare. */
+    private static final int GENERATION_MASK = (1 << (30 - SLOT_BITS)) - 1;
+    private static final int EMPTY = -1;
+
+    // Index: UUID hash -> slot, backward-shift deletion; at most half full
+    private final int[] index = new int[CAPACITY * 2];
+    private final int indexMask = index.length - 1;
+
+    // Slots; [0, used) are all taken, as slots are only freed to be handed out again
+    private final long[] msbs = new long[CAPACITY];
+    private final long[] lsbs = new long[CAPACITY];
+    private final long[] lastActive = new long[CAPACITY];
+    private final int[] generations = new int[CAPACITY];
+    private final int[] standing = new int[CAPACITY];
+    private final int[] removed = new int[CAPACITY];
+    private final long[] lifetimeTicks = new long[CAPACITY];
+    private final int[] broken = new int[CAPACITY];
+    private final int[] versions = new int[CAPACITY];
+
+    private int used;
+    /** Stamp of the latest placement or break, for picking the least recently active slot. */
+    private long clock;
+
+    public WebStats() {
+        Arrays.fill(index, EMPTY);
+    }
+
+    /** Slot of a player, or {@link #NONE} if they have none. */
+    public int slot(UUID uuid) {
+        if (used == 0) return NONE;
+        return find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Slot of a player who placed or broke a web, given one if they have
+     * none. When every slot is taken, the least recently active player's
+     * numbers are dropped to make room.
+     */
+    public int acquire(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        int slot = find(msb, lsb);
+        if (slot == NONE) {
+            slot = used < CAPACITY ? used++ : evict();
+            msbs[slot] = msb;
+            lsbs[slot] = lsb;
+            insertIndex(slot);
+        }
+        lastActive[slot] = ++clock;
+        return slot;
+    }
+
+    /** The slot's current player, for tagging their webs; see {@link #slotOf}. */
+    public int owner(int slot) {
+        return generations[slot] << SLOT_BITS | slot;
+    }
+
+    /** Slot of an {@link #owner}, or {@link #NONE} if that player has since lost it or {@code owner} is -1. */
+    public int slotOf(int owner) {
+        int slot = owner & (CAPACITY - 1);
+        return slot < used && owner >>> SLOT_BITS == generations[slot] ? slot : NONE;
+    }
+
+    /** One of the player's webs now stands in the world. */
+    public void placed(int slot) {
+        standing[slot]++;
+        versions[slot]++;
+    }
+
+    /** One of the player's webs was removed after {@code ticks}. */
+    public void removed(int slot, int ticks) {
+        if (standing[slot] > 0) standing[slot]--;
+        removed[slot]++;
+        lifetimeTicks[slot] += ticks;
+        versions[slot]++;
+    }
+
+    /** One of the player's webs left render distance; it still stands, but is no longer seen. */
+    public void unloaded(int slot) {
+        if (standing[slot] > 0) standing[slot]--;
+        versions[slot]++;
+    }
+
+    /** The player broke a web. */
+    public void broke(int slot) {
+        broken[slot]++;
+        versions[slot]++;
+    }
+
+    public int standing(int slot) {
+        return standing[slot];
+    }
+
+    public int removed(int slot) {
+        return removed[slot];
+    }
+
+    public int broken(int slot) {
+        return broken[slot];
+    }
+
+    /** Average lifetime of the player's removed webs in ticks, or -1 if none were removed. */
+    public double averageLifetimeTicks(int slot) {
+        return removed[slot] > 0 ? (double) lifetimeTicks[slot] / removed[slot] : -1;
+    }
+
+    public int version(int slot) {
+        return versions[slot];
+    }
+
+    /** Every web left the world, e.g. on a world change; the other numbers are kept. */
+    public void clearStanding() {
+        for (int slot = 0; slot < used; slot++) {
+            if (standing[slot] == 0) continue;
+            standing[slot] = 0;
+            versions[slot]++;
+        }
+    }
+
+    public void clear() {
+        for (int slot = 0; slot < used; slot++) {
+            reset(slot);
+        }
+        Arrays.fill(index, EMPTY);
+        used = 0;
+    }
+
+    /** Frees the least recently active slot. A full scan, but only for a new player once every slot is taken. */
+    private int evict() {
+        int oldest = 0;
+        for (int slot = 1; slot < CAPACITY; slot++) {
+            if (lastActive[slot] < lastActive[oldest]) oldest = slot;
+        }
+        removeIndex(oldest);
+        reset(oldest);
+        return oldest;
+    }
+
+    private void reset(int slot) {
+        standing[slot] = 0;
+        removed[slot] = 0;
+        lifetimeTicks[slot] = 0L;
+        broken[slot] = 0;
+        versions[slot]++;
+        generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+    }
+
+    private int find(long msb, long lsb) {
+        int i = hash(msb, lsb) & indexMask;
+        while (true) {
+            int slot = index[i];
+            if (slot == EMPTY) return NONE;
+            if (msbs[slot] == msb && lsbs[slot] == lsb) return slot;
+            i = (i + 1) & indexMask;
+        }
+    }
+
+    private void insertIndex(int slot) {
+        int i = hash(msbs[slot], lsbs[slot]) & indexMask;
+        while (index[i] != EMPTY) {
+            i = (i + 1) & indexMask;
+        }
+        index[i] = slot;
+    }
+
+    /** Backward-shift deletion keeps probe chains intact without tombstones. */
+    private void removeIndex(int slot) {
+        int i = hash(msbs[slot], lsbs[slot]) & indexMask;
+        while (index[i] != slot) {
+            i = (i + 1) & indexMask;
+        }
+
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & indexMask;
+            int moved = index[j];
+            if (moved == EMPTY) break;
+            int home = hash(msbs[moved], lsbs[moved]) & indexMask;
+            // Move j into the gap if its home position is not in (gap, j]
+            if (((j - home) & indexMask) >= ((j - gap) & indexMask)) {
+                index[gap] = moved;
+                gap = j;
+            }
+        }
+        index[gap] = EMPTY;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -1,18 +1,33 @@
 package com.jellomakker.potcounter;
 
+import com.jellomakker.potcounter.capture.InputCapture;
+import com.jellomakker.potcounter.classify.PotionClassifier;
 import com.jellomakker.potcounter.config.PotCounterConfig;
+import com.jellomakker.potcounter.persist.CountJournal;
+import com.jellomakker.potcounter.render.TopPlayersHud;
+import com.jellomakker.potcounter.tracker.PotCounts;
+import com.jellomakker.potcounter.tracker.PotTracker;
+import com.jellomakker.potcounter.tracker.Ranking;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.client.rendering.v1.hud.HudElementRegistry;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.AbstractClientPlayerEntity;
+import net.minecraft.client.network.ServerInfo;
 import net.minecraft.client.option.KeyBinding;
+import net.minecraft.client.world.ClientWorld;
 import net.minecraft.component.DataComponentTypes;
 import net.minecraft.component.type.PotionContentsComponent;
 import net.minecraft.entity.Entity;
-import net.minecraft.entity.effect.StatusEffects;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.projectile.thrown.PotionEntity;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.text.MutableText;
 import net.minecraft.text.Style;
 import net.minecraft.text.StyleSpriteSource;
 import net.minecraft.text.Text;
@@ -22,8 +37,14 @@ import org.lwjgl.glfw.GLFW;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 public class PotCounterClient implements ClientModInitializer {
     private static final Logger LOGGER = LoggerFactory.getLogger("potcounter");
@@ -31,14 +52,40 @@ public class PotCounterClient implements ClientModInitializer {
 
     public static final Identifier POT_FONT = Identifier.of(MOD_ID, "pot");
     public static final String POT_ICON = "\uE200";
+    /** Icon per {@link PotCounts} type; healing keeps the original splash potion icon. */
+    private static final String[] TYPE_ICONS = {POT_ICON, "\uE201", "\uE202", "\uE203", "\uE204"};
 
-    private static final Map<UUID, Integer> COUNTS = new ConcurrentHashMap<>();
+    /** Per-player counts and potion bookkeeping; see {@link PotTracker}. */
+    private static final PotTracker TRACKER = new PotTracker();
 
-    /** Entity network ID → UUID, populated each tick for the renderer mixin. */
-    private static final Map<Integer, UUID> ID_TO_UUID = new ConcurrentHashMap<>();
+    private static final DateTimeFormatter CAPTURE_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
 
-    /** Entity IDs already processed this session (counted or rejected). */
-    private static final Set<Integer> COUNTED_POTIONS = ConcurrentHashMap.newKeySet();
+    /** Open input capture, or null when capture is off. */
+    private static InputCapture capture;
+
+    /** Count journal for the current server, or null when persistence is off. */
+    private static CountJournal journal;
+
+    /** Snapshots every loaded player's position for throw attribution. */
+    private static final PotTracker.PositionSource WORLD_POSITIONS = into -> {
+        ClientWorld world = MinecraftClient.getInstance().world;
+        if (world == null) return;
+        List<AbstractClientPlayerEntity> players = world.getPlayers();
+        for (int i = 0, n = players.size(); i < n; i++) {
+            PlayerEntity player = players.get(i);
+            Vec3d pos = player.getSyncedPos();
+            into.add(player.getId(), player.getUuid(), pos.x, pos.y, pos.z);
+        }
+        if (capture != null) capture.positions(into);
+    };
+
+    /**
+     * Potions loaded since the last tick ended. They are classified at the end
+     * of the tick rather than on load, because the item that says what they
+     * are arrives in the tracker data that follows the spawn. Holding the
+     * entity also covers potions that spawn and vanish within one tick.
+     */
+    private static final List<PotionEntity> SPAWNED_POTIONS = new ArrayList<>();
 
     private static KeyBinding resetKeybind;
 
@@ -53,10 +100,39 @@ public class PotCounterClient implements ClientModInitializer {
         ));
 
         ClientTickEvents.END_CLIENT_TICK.register(this::onTick);
+        HudElementRegistry.addLast(Identifier.of(MOD_ID, "top_players"), TopPlayersHud::render);
+        ClientEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof PlayerEntity player) {
+                TRACKER.onPlayerLoad(player.getId(), player.getUuid());
+                if (capture != null) capture.playerLoad(player.getId(), player.getUuid());
+            } else if (entity instanceof PotionEntity potionEntity) {
+                SPAWNED_POTIONS.add(potionEntity);
+            }
+        });
+        ClientEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof PlayerEntity player) {
+                TRACKER.onPlayerUnload(player.getId(), player.getUuid());
+                if (capture != null) capture.playerUnload(player.getId(), player.getUuid());
+            } else if (entity instanceof PotionEntity) {
+                TRACKER.onPotionGone(entity.getId());
+                if (capture != null) capture.potionGone(entity.getId());
+            }
+        });
+        // Entity ids are per world; drop every binding so a dimension switch can't leave stale ids behind
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> {
+            SPAWNED_POTIONS.clear();
+            TRACKER.onWorldChange();
+            if (capture != null) capture.worldChange();
+        });
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> {
+            if (PotCounterConfig.get().captureInputs) startCapture();
+            if (PotCounterConfig.get().persistCounts) openJournal(client.getCurrentServerEntry());
+        });
         ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> {
-            COUNTS.clear();
-            ID_TO_UUID.clear();
-            COUNTED_POTIONS.clear();
+            SPAWNED_POTIONS.clear();
+            TRACKER.clear();
+            stopCapture();
+            closeJournal();
         });
 
         LOGGER.info("[PotCounter] Initialized (rendering via EntityRendererMixin)");
@@ -73,106 +149,173 @@ public class PotCounterClient implements ClientModInitializer {
 
         PotCounterConfig config = PotCounterConfig.get();
 
-        // Maintain entity-id → UUID map for renderer mixin
-        Set<UUID> active = new HashSet<>();
-        for (PlayerEntity player : client.world.getPlayers()) {
-            UUID uuid = player.getUuid();
-            active.add(uuid);
-            ID_TO_UUID.put(player.getId(), uuid);
-        }
+        // Classify the potions that spawned this tick
+        if (config.enabled && !SPAWNED_POTIONS.isEmpty()) {
+            UUID excluded = !config.includeSelfDisplay && client.player != null ? client.player.getUuid() : null;
+            for (int i = 0, n = SPAWNED_POTIONS.size(); i < n; i++) {
+                PotionEntity potionEntity = SPAWNED_POTIONS.get(i);
+                if (!TRACKER.firstSighting(potionEntity.getId())) continue;
 
-        // Scan all entities for splash potions
-        if (config.enabled) {
-            for (Entity entity : client.world.getEntities()) {
-                if (!(entity instanceof PotionEntity potionEntity)) continue;
-                int entityId = potionEntity.getId();
-                if (!COUNTED_POTIONS.add(entityId)) continue;
-                if (!isInstantHealthTwo(potionEntity)) continue;
-                attributePotionThrow(client, potionEntity, config);
+                // The spawn packet names the thrower; only a potion with no owner falls back to proximity
+                Entity owner = owner(potionEntity);
+                UUID thrower = owner instanceof PlayerEntity ? owner.getUuid() : null;
+                int type = owner == null || thrower != null
+                        ? PotionClassifier.typeOf(potionEntity.getStack())
+                        : PotionClassifier.UNTRACKED;
+                Vec3d potionPos = potionEntity.getSyncedPos();
+                if (type != PotionClassifier.UNTRACKED) {
+                    TRACKER.onThrow(potionPos.x, potionPos.y, potionPos.z, type, thrower, excluded, WORLD_POSITIONS);
+                }
+                if (capture != null) {
+                    capture.potion(potionEntity.getId(), type, potionPos.x, potionPos.y, potionPos.z,
+                            thrower, excluded, describeContents(potionEntity));
+                }
+
+                // Unloaded before we got to it, so no unload event will clear its id
+                if (potionEntity.isRemoved()) {
+                    TRACKER.onPotionGone(potionEntity.getId());
+                    if (capture != null) capture.potionGone(potionEntity.getId());
+                }
             }
         }
+        SPAWNED_POTIONS.clear();
 
-        // Clean up COUNTED_POTIONS for entities that are gone/dead
-        COUNTED_POTIONS.removeIf(id -> {
-            Entity e = client.world.getEntityById(id);
-            return e == null || !e.isAlive();
-        });
-
-        COUNTS.keySet().retainAll(active);
-        ID_TO_UUID.values().retainAll(active);
+        TRACKER.endTick();
+        if (capture != null) {
+            capture.tick();
+            if (capture.failed()) {
+                LOGGER.warn("[PotCounter] Input capture failed to write, stopping");
+                stopCapture();
+            }
+        }
+        if (journal != null) {
+            journal.flush();
+            Map<UUID, Long> restored = journal.takeRestored();
+            if (restored != null) TRACKER.seed(restored);
+            if (journal.failed()) {
+                LOGGER.warn("[PotCounter] Count journal failed to read or write, counts are no longer saved");
+                closeJournal();
+            }
+        }
     }
 
-    private boolean isInstantHealthTwo(PotionEntity potionEntity) {
+    /**
+     * The entity that threw the potion. The client resolves it from the
+     * owner id in the spawn packet, so it is null only when the packet had
+     * no owner or the owner was not loaded.
+     */
+    private static Entity owner(PotionEntity potionEntity) {
         try {
-            var stack = potionEntity.getStack();
-            if (stack == null || stack.isEmpty()) return false;
+            return potionEntity.getOwner();
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
 
-            PotionContentsComponent contents = stack.get(DataComponentTypes.POTION_CONTENTS);
-            if (contents == null) return false;
+    /** Readable potion id and effects, recorded with captured potions. */
+    private static String describeContents(PotionEntity potionEntity) {
+        try {
+            PotionContentsComponent contents = potionEntity.getStack().get(DataComponentTypes.POTION_CONTENTS);
+            if (contents == null) return "no contents";
 
-            // Check custom effects first (amplifier >= 1 = Instant Health II)
+            StringBuilder description = new StringBuilder(
+                    contents.potion().map(RegistryEntry::getIdAsString).orElse("custom"));
             for (var effect : contents.getEffects()) {
-                if (effect.getEffectType().value() == StatusEffects.INSTANT_HEALTH.value()
-                        && effect.getAmplifier() >= 1) {
-                    return true;
-                }
+                description.append(' ').append(effect.getEffectType().getIdAsString())
+                        .append('/').append(effect.getAmplifier());
             }
+            return description.toString();
+        } catch (Throwable ignored) {
+            return "unreadable";
+        }
+    }
 
-            // Check base potion by KEY rather than .value() to avoid registry binding issues
-            if (contents.potion().isPresent()) {
-                var keyOpt = contents.potion().get().getKey();
-                if (keyOpt.isPresent()) {
-                    String path = keyOpt.get().getValue().getPath();
-                    // "strong_healing" = Instant Health II splash potion
-                    return "strong_healing".equals(path);
-                }
-            }
-        } catch (Throwable ignored) {}
-        return false;
+    private static void startCapture() {
+        stopCapture();
+        Path file = FabricLoader.getInstance().getGameDir().resolve("captures")
+                .resolve(MOD_ID + "-" + LocalDateTime.now().format(CAPTURE_NAME) + ".bin");
+        try {
+            capture = InputCapture.open(file);
+        } catch (IOException e) {
+            LOGGER.warn("[PotCounter] Could not open input capture {}: {}", file, e.toString());
+            return;
+        }
+
+        // Players loaded before the connection finished joining
+        TRACKER.players().forEach(capture::playerLoad);
+        LOGGER.info("[PotCounter] Capturing inputs to {}", file);
+    }
+
+    private static void stopCapture() {
+        if (capture == null) return;
+        capture.close();
+        capture = null;
     }
 
-    private void attributePotionThrow(MinecraftClient client, PotionEntity potionEntity, PotCounterConfig config) {
-        Vec3d potionPos = potionEntity.getSyncedPos();
-        double closestDist = 20.0;
-        PlayerEntity closest = null;
+    /**
+     * Opens the count journal for a multiplayer server. Its counts are read in
+     * the background and seeded on the tick they arrive. Singleplayer and LAN
+     * worlds have no server entry and are not persisted.
+     */
+    private static void openJournal(ServerInfo server) {
+        closeJournal();
+        if (server == null) return;
 
-        for (PlayerEntity player : client.world.getPlayers()) {
-            double dist = player.getSyncedPos().distanceTo(potionPos);
-            if (dist < closestDist) {
-                closestDist = dist;
-                closest = player;
-            }
-        }
+        String name = server.address.replaceAll("[^A-Za-z0-9._-]", "_") + ".journal";
+        Path file = FabricLoader.getInstance().getConfigDir().resolve(MOD_ID).resolve("counts").resolve(name);
+        journal = CountJournal.open(file);
+        TRACKER.setListener(journal);
+    }
 
-        if (closest != null) {
-            UUID uuid = closest.getUuid();
-            if (!config.includeSelfDisplay && client.player != null
-                    && uuid.equals(client.player.getUuid())) {
-                return;
-            }
-            COUNTS.merge(uuid, 1, Integer::sum);
-        }
+    private static void closeJournal() {
+        if (journal == null) return;
+        TRACKER.setListener(null);
+        journal.close();
+        journal = null;
     }
 
-    public static int getCount(UUID playerUuid) {
-        return COUNTS.getOrDefault(playerUuid, 0);
+    /** The player's packed {@link PotCounts}. */
+    public static long getCounts(UUID playerUuid) {
+        return TRACKER.getCounts(playerUuid);
     }
 
     /** Look up UUID from an entity network id. */
     public static UUID getUuidFromEntityId(int entityId) {
-        return ID_TO_UUID.get(entityId);
+        return TRACKER.getUuid(entityId);
     }
 
-    /** Build the counter text with a potion icon from our custom font. */
-    public static Text buildCounterText(int count) {
-        Text potIcon = Text.literal(POT_ICON)
-                .setStyle(Style.EMPTY.withFont(new StyleSpriteSource.Font(POT_FONT)));
-        return Text.literal(String.valueOf(count)).append(Text.literal(" ")).append(potIcon);
+    /** Players by count, highest first, read by the top players panel. */
+    public static Ranking getRanking() {
+        return TRACKER.ranking();
+    }
+
+    /**
+     * Build the counter text from packed counts: the most thrown types
+     * first, each as its count and icon from our custom font.
+     */
+    public static Text buildCounterText(long counts) {
+        int shown = Math.max(1, PotCounterConfig.get().labelTypes);
+        MutableText text = Text.empty();
+        long remaining = counts;
+        for (int n = 0; n < shown; n++) {
+            int top = -1;
+            for (int type = 0; type < PotCounts.TYPES; type++) {
+                int count = PotCounts.get(remaining, type);
+                if (count > 0 && (top < 0 || count > PotCounts.get(remaining, top))) top = type;
+            }
+            if (top < 0) break;
+
+            if (n > 0) text.append(Text.literal(" "));
+            Text icon = Text.literal(TYPE_ICONS[top])
+                    .setStyle(Style.EMPTY.withFont(new StyleSpriteSource.Font(POT_FONT)));
+            text.append(Text.literal(PotCounts.get(remaining, top) + " ")).append(icon);
+            remaining = PotCounts.with(remaining, top, 0);
+        }
+        return text;
     }
 
     public static void clearAll() {
-        COUNTS.clear();
-        ID_TO_UUID.clear();
-        COUNTED_POTIONS.clear();
+        TRACKER.resetCounts();
+        if (capture != null) capture.reset();
     }
 }
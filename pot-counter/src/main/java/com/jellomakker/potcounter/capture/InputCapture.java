@@ -0,0 +1,164 @@
+package com.jellomakker.potcounter.capture;
+
+import com.jellomakker.potcounter.tracker.PlayerPositions;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Writes every input the pot tracker consumes to a compact binary file, so a
+ * session can be replayed headless with {@link InputReplay}.
+ *
+ * Layout: header (magic, version, counter id, start millis), then one event
+ * per record: a type byte followed by fixed-width big-endian fields. A
+ * position snapshot taken while attributing a throw is written before the
+ * potion event that caused it; a potion that unloads is written when it
+ * unloads, or straight after its potion event if it was already gone by then.
+ * On the first I/O error the capture stops recording instead of throwing into the game.
+ */
+public final class InputCapture implements AutoCloseable {
+    public static final int MAGIC = 0x43434150; // "CCAP"
+    public static final short VERSION = 3;
+    public static final byte COUNTER_ID = 2;
+
+    static final byte TICK = 1;
+    static final byte PLAYER_LOAD = 2;
+    static final byte PLAYER_UNLOAD = 3;
+    static final byte WORLD_CHANGE = 4;
+    static final byte POTION = 5;
+    static final byte POTION_GONE = 6;
+    static final byte POSITIONS = 7;
+    static final byte RESET = 8;
+
+    private final DataOutputStream out;
+    private boolean failed;
+
+    private InputCapture(DataOutputStream out) {
+        this.out = out;
+    }
+
+    public static InputCapture open(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeByte(COUNTER_ID);
+        out.writeLong(System.currentTimeMillis());
+        return new InputCapture(out);
+    }
+
+    public boolean failed() {
+        return failed;
+    }
+
+    public void tick() {
+        marker(TICK);
+    }
+
+    public void playerLoad(int entityId, UUID uuid) {
+        playerEvent(PLAYER_LOAD, entityId, uuid);
+    }
+
+    public void playerUnload(int entityId, UUID uuid) {
+        playerEvent(PLAYER_UNLOAD, entityId, uuid);
+    }
+
+    public void worldChange() {
+        marker(WORLD_CHANGE);
+    }
+
+    /**
+     * A potion entity seen for the first time.
+     *
+     * @param type     the {@link com.jellomakker.potcounter.tracker.PotCounts} type it counts as, or -1 if untracked
+     * @param thrower  player that threw it, or null if unknown
+     * @param excluded player excluded from attribution, or null
+     * @param contents readable potion contents, for tracing miscounts
+     */
+    public void potion(int entityId, int type, double x, double y, double z,
+                       UUID thrower, UUID excluded, String contents) {
+        if (failed) return;
+        try {
+            out.writeByte(POTION);
+            out.writeInt(entityId);
+            out.writeByte(type);
+            out.writeDouble(x);
+            out.writeDouble(y);
+            out.writeDouble(z);
+            writeUuid(thrower);
+            writeUuid(excluded);
+            out.writeUTF(contents);
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    public void potionGone(int entityId) {
+        if (failed) return;
+        try {
+            out.writeByte(POTION_GONE);
+            out.writeInt(entityId);
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    public void positions(PlayerPositions positions) {
+        if (failed) return;
+        try {
+            out.writeByte(POSITIONS);
+            out.writeInt(positions.size());
+            for (int i = 0; i < positions.size(); i++) {
+                out.writeInt(positions.entityId(i));
+                writeUuid(positions.uuid(i));
+                out.writeDouble(positions.x(i));
+                out.writeDouble(positions.y(i));
+                out.writeDouble(positions.z(i));
+            }
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    public void reset() {
+        marker(RESET);
+    }
+
+    private void marker(byte type) {
+        if (failed) return;
+        try {
+            out.writeByte(type);
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    private void playerEvent(byte type, int entityId, UUID uuid) {
+        if (failed) return;
+        try {
+            out.writeByte(type);
+            out.writeInt(entityId);
+            writeUuid(uuid);
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    /** Null is written as the nil UUID, which no player has. */
+    private void writeUuid(UUID uuid) throws IOException {
+        out.writeLong(uuid == null ? 0L : uuid.getMostSignificantBits());
+        out.writeLong(uuid == null ? 0L : uuid.getLeastSignificantBits());
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.jellomakker.potcounter.capture;
+
+import com.jellomakker.potcounter.tracker.PlayerPositions;
+import com.jellomakker.potcounter.tracker.PotCounts;
+import com.jellomakker.potcounter.tracker.PotTracker;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Feeds an {@link InputCapture} recording back through {@link PotTracker}
+ * as fast as possible, without the game. Takes the whole recording in memory,
+ * so timing a replay covers decoding and counting only. Potions are not
+ * re-classified; the recorded decision and contents are used as-is. The
+ * command-line driver that times and prints replays lives in the benchmarks
+ * project.
+ */
+public final class InputReplay {
+    private InputReplay() {
+    }
+
+    public static Result replay(byte[] capture) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(capture));
+        if (in.readInt() != InputCapture.MAGIC || in.readShort() != InputCapture.VERSION
+                || in.readByte() != InputCapture.COUNTER_ID) {
+            throw new IOException("Not a pot counter capture");
+        }
+        in.readLong(); // start millis
+
+        PotTracker tracker = new PotTracker();
+        // Last recorded snapshot; the live tracker only asks once per tick, right before the throw that needed it
+        PlayerPositions recorded = new PlayerPositions();
+        PotTracker.PositionSource source = into -> {
+            for (int i = 0; i < recorded.size(); i++) {
+                into.add(recorded.entityId(i), recorded.uuid(i), recorded.x(i), recorded.y(i), recorded.z(i));
+            }
+        };
+        Map<String, Integer> contentsSeen = new TreeMap<>();
+
+        long events = 0;
+        long ticks = 0;
+        try {
+            while (true) {
+                byte type = in.readByte();
+                events++;
+                switch (type) {
+                    case InputCapture.TICK -> {
+                        tracker.endTick();
+                        ticks++;
+                    }
+                    case InputCapture.PLAYER_LOAD -> tracker.onPlayerLoad(in.readInt(), readUuid(in));
+                    case InputCapture.PLAYER_UNLOAD -> tracker.onPlayerUnload(in.readInt(), readUuid(in));
+                    case InputCapture.WORLD_CHANGE -> tracker.onWorldChange();
+                    case InputCapture.POTION -> {
+                        int entityId = in.readInt();
+                        int potionType = in.readByte();
+                        double x = in.readDouble();
+                        double y = in.readDouble();
+                        double z = in.readDouble();
+                        UUID thrower = readUuid(in);
+                        UUID excluded = readUuid(in);
+                        String contents = in.readUTF();
+                        String decision = potionType < 0 ? "ignored " : PotCounts.name(potionType) + " ";
+                        contentsSeen.merge(decision + contents, 1, Integer::sum);
+                        if (tracker.firstSighting(entityId) && potionType >= 0) {
+                            tracker.onThrow(x, y, z, potionType, thrower, excluded, source);
+                        }
+                    }
+                    case InputCapture.POTION_GONE -> tracker.onPotionGone(in.readInt());
+                    case InputCapture.POSITIONS -> {
+                        recorded.clear();
+                        for (int i = 0, n = in.readInt(); i < n; i++) {
+                            recorded.add(in.readInt(), readUuid(in), in.readDouble(), in.readDouble(), in.readDouble());
+                        }
+                    }
+                    case InputCapture.RESET -> tracker.resetCounts();
+                    default -> throw new IOException("Unknown event type " + type + " after " + events + " events");
+                }
+            }
+        } catch (EOFException ignored) {
+            // End of the recording
+        }
+        return new Result(tracker, events, ticks, contentsSeen);
+    }
+
+    /**
+     * The tracker after the last event, how many events and ticks were
+     * replayed, and how often each recorded decision and potion contents
+     * came up, sorted by decision.
+     */
+    public record Result(PotTracker tracker, long events, long ticks, Map<String, Integer> contentsSeen) {
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        long msb = in.readLong();
+        long lsb = in.readLong();
+        return msb == 0L && lsb == 0L ? null : new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,139 @@
+package com.jellomakker.potcounter.classify;
+
+import com.jellomakker.potcounter.config.PotCounterConfig;
+import com.jellomakker.potcounter.tracker.PotCounts;
+import net.minecraft.component.DataComponentTypes;
+import net.minecraft.component.type.PotionContentsComponent;
+import net.minecraft.entity.effect.StatusEffect;
+import net.minecraft.entity.effect.StatusEffectInstance;
+import net.minecraft.entity.effect.StatusEffects;
+import net.minecraft.item.ItemStack;
+import net.minecraft.potion.Potion;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.util.Identifier;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Decides whether a thrown potion counts, and as which {@link PotCounts}
+ * type, from the configured {@code trackedPotions}.
+ *
+ * The id list is compiled into maps keyed by registry keys, which are
+ * interned, so a base potion is matched by one identity lookup. Custom
+ * effects match when they carry an effect of a tracked potion at the same
+ * amplifier or higher. A potion's type comes from its first effect that
+ * has one; anything else counts as {@link PotCounts#OTHER}. Decisions are
+ * cached per distinct potion contents, so the potions of a pot-spam fight
+ * classify with one hash lookup each. Client thread only.
+ */
+public final class PotionClassifier {
+    /** Returned for potions that are not tracked. */
+    public static final int UNTRACKED = -1;
+
+    private static final int CACHE_SIZE = 256;
+
+    /** Tracked potion → its type. */
+    private static final Map<RegistryKey<Potion>, Integer> POTIONS = new IdentityHashMap<>();
+    /** Effect of a tracked potion → lowest amplifier among tracked potions with it, and its type. */
+    private static final Map<RegistryKey<StatusEffect>, EffectRule> EFFECTS = new IdentityHashMap<>();
+    private static final Map<PotionContentsComponent, Integer> DECISIONS = new HashMap<>();
+
+    /** Bumped whenever the tracked potions change. */
+    private static int version;
+    private static int compiledVersion = -1;
+
+    private PotionClassifier() {
+    }
+
+    /** The {@link PotCounts} type the potion counts as, or {@link #UNTRACKED}. */
+    public static int typeOf(ItemStack stack) {
+        try {
+            if (stack == null || stack.isEmpty()) return UNTRACKED;
+            PotionContentsComponent contents = stack.get(DataComponentTypes.POTION_CONTENTS);
+            if (contents == null) return UNTRACKED;
+
+            if (compiledVersion != version) compile();
+            Integer cached = DECISIONS.get(contents);
+            if (cached != null) return cached;
+
+            int type = classify(contents);
+            if (DECISIONS.size() >= CACHE_SIZE) DECISIONS.clear();
+            DECISIONS.put(contents, type);
+            return type;
+        } catch (Throwable ignored) {
+            return UNTRACKED;
+        }
+    }
+
+    /** Recompiles the tracked set on next use. */
+    public static void invalidate() {
+        version++;
+    }
+
+    private static int classify(PotionContentsComponent contents) {
+        Optional<RegistryEntry<Potion>> potion = contents.potion();
+        if (potion.isPresent()) {
+            // By key rather than value(), which throws on an unbound entry
+            Optional<RegistryKey<Potion>> key = potion.get().getKey();
+            if (key.isPresent()) {
+                Integer type = POTIONS.get(key.get());
+                if (type != null) return type;
+            }
+        }
+
+        if (EFFECTS.isEmpty()) return UNTRACKED;
+        for (StatusEffectInstance effect : contents.customEffects()) {
+            Optional<RegistryKey<StatusEffect>> key = effect.getEffectType().getKey();
+            if (key.isEmpty()) continue;
+            EffectRule rule = EFFECTS.get(key.get());
+            if (rule != null && effect.getAmplifier() >= rule.minAmplifier()) return rule.type();
+        }
+        return UNTRACKED;
+    }
+
+    private static void compile() {
+        compiledVersion = version;
+        POTIONS.clear();
+        EFFECTS.clear();
+        DECISIONS.clear();
+
+        Map<RegistryKey<StatusEffect>, Integer> effectTypes = new IdentityHashMap<>();
+        StatusEffects.INSTANT_HEALTH.getKey().ifPresent(key -> effectTypes.put(key, PotCounts.HEALING));
+        StatusEffects.INSTANT_DAMAGE.getKey().ifPresent(key -> effectTypes.put(key, PotCounts.HARMING));
+        StatusEffects.STRENGTH.getKey().ifPresent(key -> effectTypes.put(key, PotCounts.STRENGTH));
+        StatusEffects.SPEED.getKey().ifPresent(key -> effectTypes.put(key, PotCounts.SPEED));
+
+        List<String> ids = PotCounterConfig.get().trackedPotions;
+        if (ids == null) return;
+        for (String id : ids) {
+            Identifier identifier = Identifier.tryParse(id);
+            if (identifier == null) continue;
+            Potion potion = Registries.POTION.get(identifier);
+            if (potion == null) continue;
+
+            int potionType = PotCounts.OTHER;
+            for (StatusEffectInstance effect : potion.getEffects()) {
+                Optional<RegistryKey<StatusEffect>> key = effect.getEffectType().getKey();
+                if (key.isEmpty()) continue;
+                int type = effectTypes.getOrDefault(key.get(), PotCounts.OTHER);
+                if (potionType == PotCounts.OTHER) potionType = type;
+
+                EffectRule rule = EFFECTS.get(key.get());
+                if (rule == null || effect.getAmplifier() < rule.minAmplifier()) {
+                    EFFECTS.put(key.get(), new EffectRule(effect.getAmplifier(), type));
+                }
+            }
+            POTIONS.put(RegistryKey.of(RegistryKeys.POTION, identifier), potionType);
+        }
+    }
+
+    private record EffectRule(int minAmplifier, int type) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.jellomakker.potcounter.classify;
+
+import java.util.List;
+
+/**
+ * Splash potion types offered on the config screen. Each toggles one or
+ * more potion ids in {@code trackedPotions}; the config file accepts any
+ * other potion id as well.
+ */
+public enum PotionGroup {
+    HEALING_II("Healing II", "minecraft:strong_healing"),
+    HEALING("Healing", "minecraft:healing"),
+    HARMING_II("Harming II", "minecraft:strong_harming"),
+    HARMING("Harming", "minecraft:harming"),
+    STRENGTH("Strength", "minecraft:strength", "minecraft:long_strength", "minecraft:strong_strength"),
+    SPEED("Speed", "minecraft:swiftness", "minecraft:long_swiftness", "minecraft:strong_swiftness"),
+    FIRE_RESISTANCE("Fire Resistance", "minecraft:fire_resistance", "minecraft:long_fire_resistance"),
+    REGENERATION("Regeneration", "minecraft:regeneration", "minecraft:long_regeneration",
+            "minecraft:strong_regeneration");
+
+    private final String label;
+    private final List<String> potionIds;
+
+    PotionGroup(String label, String... potionIds) {
+        this.label = label;
+        this.potionIds = List.of(potionIds);
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public List<String> potionIds() {
+        return potionIds;
+    }
+
+    /** True when every potion of the group is tracked. */
+    public boolean isIn(List<String> tracked) {
+        return tracked.containsAll(potionIds);
+    }
+
+    public void toggleIn(List<String> tracked) {
+        if (isIn(tracked)) {
+            tracked.removeAll(potionIds);
+        } else {
+            for (String id : potionIds) {
+                if (!tracked.contains(id)) tracked.add(id);
+            }
+        }
+    }
+}
@@ -3,11 +3,15 @@ package com.jellomakker.potcounter.config;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParseException;
+import com.jellomakker.potcounter.classify.PotionClassifier;
+import com.jellomakker.potcounter.render.CounterLabels;
 import net.fabricmc.loader.api.FabricLoader;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public class PotCounterConfig {
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
@@ -18,7 +22,31 @@ public class PotCounterConfig {
     public boolean enabled = true;
     public boolean showOnPlayerName = true;
     public boolean includeSelfDisplay = false;
+    /**
+     * When false, the counter label won't show through blocks (no see-through
+     * background). Only read by the counter that draws the combined label.
+     */
     public boolean showBackground = true;
+    /** Potion ids whose splash throws are counted; custom potions count when they carry the same effects. */
+    public List<String> trackedPotions = new ArrayList<>(List.of("minecraft:strong_healing"));
+    /** Most potion types shown on a label, most thrown first. */
+    public int labelTypes = 3;
+    /** Saves counts per server so they survive a crash or reconnect. */
+    public boolean persistCounts = false;
+    /** This counter's part of the label is not drawn past this many blocks; 0 draws it at any distance. */
+    public int labelMaxDistance = 64;
+    /**
+     * Past this many blocks this counter's part of the label shrinks to its
+     * icon; 0 always draws it in full. Config-file only.
+     */
+    public int iconOnlyDistance = 32;
+    /** Rows in the top players panel; 0 hides this counter from the panel. */
+    public int topPlayers = 0;
+    /**
+     * Records every tracker input to {@code captures/} in the game directory
+     * for headless replay. Config-file only; meant for debugging and profiling.
+     */
+    public boolean captureInputs = false;
 
     public static PotCounterConfig get() {
         if (instance == null) {
@@ -54,5 +82,7 @@ public class PotCounterConfig {
             Files.writeString(CONFIG_PATH, GSON.toJson(this));
         } catch (IOException ignored) {
         }
+        CounterLabels.invalidate();
+        PotionClassifier.invalidate();
     }
 }
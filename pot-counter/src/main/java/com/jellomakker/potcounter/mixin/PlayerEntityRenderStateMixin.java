@@ -0,0 +1,24 @@
+package com.jellomakker.potcounter.mixin;
+
+import com.jellomakker.potcounter.render.CounterLabelHolder;
+import net.minecraft.client.render.entity.state.PlayerEntityRenderState;
+import net.minecraft.text.Text;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+/** Gives every player render state a slot for its counter label. */
+@Mixin(PlayerEntityRenderState.class)
+public abstract class PlayerEntityRenderStateMixin implements CounterLabelHolder {
+    @Unique
+    private Text potCounter$label;
+
+    @Override
+    public Text potCounter$getLabel() {
+        return potCounter$label;
+    }
+
+    @Override
+    public void potCounter$setLabel(Text label) {
+        potCounter$label = label;
+    }
+}
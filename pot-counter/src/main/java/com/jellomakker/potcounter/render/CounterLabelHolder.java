@@ -0,0 +1,14 @@
+package com.jellomakker.potcounter.render;
+
+import net.minecraft.text.Text;
+
+/**
+ * Added to the player render state by a mixin: the combined counter label,
+ * composed once while the state is extracted so the render hook only reads
+ * it back. Null when no label is drawn for the player.
+ */
+public interface CounterLabelHolder {
+    Text potCounter$getLabel();
+
+    void potCounter$setLabel(Text label);
+}
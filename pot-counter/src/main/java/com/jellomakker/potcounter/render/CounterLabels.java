@@ -0,0 +1,51 @@
+package com.jellomakker.potcounter.render;
+
+import com.jellomakker.potcounter.PotCounterClient;
+import net.minecraft.text.Text;
+
+import java.util.Arrays;
+
+/**
+ * Prebuilt counter labels keyed by packed counts, so the renderer does an
+ * array read instead of building a new text tree every frame. The cache is
+ * direct-mapped: a slot holds the last label built for counts hashing to
+ * it, and a collision just rebuilds. Render thread only.
+ */
+public final class CounterLabels {
+    private static final int CACHE_SIZE = 512;
+    private static final long[] KEYS = new long[CACHE_SIZE];
+    private static final Text[] LABELS = new Text[CACHE_SIZE];
+
+    /** Bumped whenever something the labels depend on changes. */
+    private static int version;
+    private static int cachedVersion;
+
+    private CounterLabels() {
+    }
+
+    public static Text get(long counts) {
+        if (cachedVersion != version) {
+            Arrays.fill(LABELS, null);
+            cachedVersion = version;
+        }
+
+        long h = counts * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h >>> 32) & (CACHE_SIZE - 1);
+        Text label = LABELS[slot];
+        if (label == null || KEYS[slot] != counts) {
+            label = PotCounterClient.buildCounterText(counts);
+            KEYS[slot] = counts;
+            LABELS[slot] = label;
+        }
+        return label;
+    }
+
+    public static int version() {
+        return version;
+    }
+
+    /** Drops every cached label; they are rebuilt lazily on next use. */
+    public static void invalidate() {
+        version++;
+    }
+}
@@ -0,0 +1,44 @@
+package com.jellomakker.potcounter.render;
+
+import com.jellomakker.potcounter.PotCounterClient;
+import com.jellomakker.potcounter.config.PotCounterConfig;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.render.entity.state.EntityRenderState;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.text.Style;
+import net.minecraft.text.StyleSpriteSource;
+import net.minecraft.text.Text;
+
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+/**
+ * The pot counter's part of the combined player label, registered as the
+ * {@link LabelCompositor#ENTRYPOINT} entrypoint. Null when the player has
+ * nothing to show, the counter is hidden or the player is past this
+ * counter's label distance; just the icon past its icon-only distance.
+ */
+public final class CounterPart implements BiFunction<PlayerEntity, EntityRenderState, Text> {
+    private static final Text ICON = Text.literal(PotCounterClient.POT_ICON)
+            .setStyle(Style.EMPTY.withFont(new StyleSpriteSource.Font(PotCounterClient.POT_FONT)));
+
+    @Override
+    public Text apply(PlayerEntity player, EntityRenderState state) {
+        PotCounterConfig config = PotCounterConfig.get();
+        if (!config.enabled || !config.showOnPlayerName) return null;
+        double distance = state.squaredDistanceToCamera;
+        if (LabelCompositor.beyond(distance, config.labelMaxDistance)) return null;
+
+        UUID uuid = player.getUuid();
+
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (!config.includeSelfDisplay && client.player != null
+                && uuid.equals(client.player.getUuid())) {
+            return null;
+        }
+
+        long counts = PotCounterClient.getCounts(uuid);
+        if (counts == 0L) return null;
+        return LabelCompositor.beyond(distance, config.iconOnlyDistance) ? ICON : CounterLabels.get(counts);
+    }
+}
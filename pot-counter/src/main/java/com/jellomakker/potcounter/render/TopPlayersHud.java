@@ -0,0 +1,70 @@
+package com.jellomakker.potcounter.render;
+
+import net.fabricmc.loader.api.entrypoint.EntrypointContainer;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.render.RenderTickCounter;
+import net.minecraft.text.Text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * HUD panel listing the players with the highest counts, one section per
+ * installed counter mod. Each counter registers a {@link Supplier} of its
+ * cached rows under {@link #ENTRYPOINT}; like the combined player label,
+ * the panel is drawn by the counter that {@link LabelCompositor} picks, so
+ * it appears once however many counters are installed. A frame only reads
+ * the cached rows and draws them. Render thread only.
+ */
+public final class TopPlayersHud {
+    public static final String ENTRYPOINT = "jellocounters:hud";
+
+    private static final int X = 4;
+    private static final int SECTION_GAP = 4;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private static Supplier<List<Text>>[] sections;
+
+    private TopPlayersHud() {
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static void render(DrawContext context, RenderTickCounter tickCounter) {
+        if (!LabelCompositor.composing()) return;
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (client.options.hudHidden || client.world == null) return;
+
+        if (sections == null) {
+            List<Supplier> loaded = new ArrayList<>();
+            for (EntrypointContainer<Supplier> container : LabelCompositor.ordered(ENTRYPOINT, Supplier.class)) {
+                try {
+                    loaded.add(container.getEntrypoint());
+                } catch (Throwable ignored) {
+                    // A counter whose rows can't be created just has no section
+                }
+            }
+            sections = loaded.toArray(new Supplier[0]);
+        }
+
+        TextRenderer textRenderer = client.textRenderer;
+        int y = context.getScaledWindowHeight() / 3;
+        for (Supplier<List<Text>> section : sections) {
+            List<Text> rows;
+            try {
+                rows = section.get();
+            } catch (Throwable ignored) {
+                // One counter failing must not hide the others
+                continue;
+            }
+            if (rows.isEmpty()) continue;
+            for (int i = 0, n = rows.size(); i < n; i++) {
+                context.drawTextWithShadow(textRenderer, rows.get(i), X, y, WHITE);
+                y += textRenderer.fontHeight + 1;
+            }
+            y += SECTION_GAP;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.jellomakker.potcounter.tracker;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Packed {@link PotCounts} of every counted player, keyed by UUID.
+ *
+ * Each player has a slot in primitive columns, found through an
+ * open-addressing index on the UUID's bits, so counting a throw reads and
+ * writes one {@code long} without boxing. Slots freed by departed players
+ * are reused; the columns only grow when every slot is taken. Client
+ * thread only.
+ */
+public final class CountTable {
+    public static final int NONE = -1;
+
+    private static final int EMPTY = -1;
+
+    // Index: UUID hash -> slot, backward-shift deletion; at most half full
+    private int[] index;
+    private int indexMask;
+
+    // Slots
+    private UUID[] uuids;
+    private long[] msbs;
+    private long[] lsbs;
+    private long[] counts;
+    private int[] nextFree;
+
+    private int freeHead = EMPTY;
+    private int highWater;
+    private int size;
+
+    public CountTable() {
+        this(64);
+    }
+
+    public CountTable(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 4);
+        uuids = new UUID[capacity];
+        msbs = new long[capacity];
+        lsbs = new long[capacity];
+        counts = new long[capacity];
+        nextFree = new int[capacity];
+        index = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        indexMask = index.length - 1;
+        Arrays.fill(index, EMPTY);
+    }
+
+    /** Players with a slot. */
+    public int size() {
+        return size;
+    }
+
+    /** Exclusive upper bound on slot numbers, for iterating with {@link #isUsed}. */
+    public int slotLimit() {
+        return highWater;
+    }
+
+    public boolean isUsed(int slot) {
+        return uuids[slot] != null;
+    }
+
+    public UUID uuid(int slot) {
+        return uuids[slot];
+    }
+
+    public long counts(int slot) {
+        return counts[slot];
+    }
+
+    public void setCounts(int slot, long packed) {
+        counts[slot] = packed;
+    }
+
+    /** A player's packed counts, 0 if they have no slot. */
+    public long get(UUID uuid) {
+        int slot = slot(uuid);
+        return slot != NONE ? counts[slot] : 0L;
+    }
+
+    /** A player's slot, or {@link #NONE}. */
+    public int slot(UUID uuid) {
+        if (size == 0) return NONE;
+        return find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /** A player's slot, taking a new one with no counts if they have none. */
+    public int acquire(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        int slot = find(msb, lsb);
+        if (slot != NONE) return slot;
+
+        slot = allocate();
+        uuids[slot] = uuid;
+        msbs[slot] = msb;
+        lsbs[slot] = lsb;
+        counts[slot] = 0L;
+        insertIndex(slot);
+        size++;
+        return slot;
+    }
+
+    /** Frees a slot; it may be handed to another player straight away. */
+    public void remove(int slot) {
+        removeIndex(slot);
+        uuids[slot] = null;
+        nextFree[slot] = freeHead;
+        freeHead = slot;
+        size--;
+    }
+
+    public void clear() {
+        if (highWater == 0) return;
+        Arrays.fill(index, EMPTY);
+        Arrays.fill(uuids, 0, highWater, null);
+        freeHead = EMPTY;
+        highWater = 0;
+        size = 0;
+    }
+
+    private int allocate() {
+        if (freeHead != EMPTY) {
+            int slot = freeHead;
+            freeHead = nextFree[slot];
+            return slot;
+        }
+        if (highWater == uuids.length) grow();
+        return highWater++;
+    }
+
+    private void grow() {
+        int capacity = uuids.length * 2;
+        uuids = Arrays.copyOf(uuids, capacity);
+        msbs = Arrays.copyOf(msbs, capacity);
+        lsbs = Arrays.copyOf(lsbs, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+        nextFree = Arrays.copyOf(nextFree, capacity);
+
+        index = new int[capacity * 2];
+        indexMask = index.length - 1;
+        Arrays.fill(index, EMPTY);
+        for (int slot = 0; slot < highWater; slot++) {
+            if (uuids[slot] != null) insertIndex(slot);
+        }
+    }
+
+    private int find(long msb, long lsb) {
+        int i = hash(msb, lsb) & indexMask;
+        while (true) {
+            int slot = index[i];
+            if (slot == EMPTY) return NONE;
+            if (msbs[slot] == msb && lsbs[slot] == lsb) return slot;
+            i = (i + 1) & indexMask;
+        }
+    }
+
+    private void insertIndex(int slot) {
+        int i = hash(msbs[slot], lsbs[slot]) & indexMask;
+        while (index[i] != EMPTY) {
+            i = (i + 1) & indexMask;
+        }
+        index[i] = slot;
+    }
+
+    /** Backward-shift deletion keeps probe chains intact without tombstones. */
+    private void removeIndex(int slot) {
+        int i = hash(msbs[slot], lsbs[slot]) & indexMask;
+        while (index[i] != slot) {
+            i = (i + 1) & indexMask;
+        }
+
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & indexMask;
+            int moved = index[j];
+            if (moved == EMPTY) break;
+            int home = hash(msbs[moved], lsbs[moved]) & indexMask;
+            // Move j into the gap if its home position is not in (gap, j]
+            if (((j - home) & indexMask) >= ((j - gap) & indexMask)) {
+                index[gap] = moved;
+                gap = j;
+            }
+        }
+        index[gap] = EMPTY;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
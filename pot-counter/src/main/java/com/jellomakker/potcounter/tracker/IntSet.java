@@ -0,0 +1,103 @@
+package com.jellomakker.potcounter.tracker;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing set of ints with linear probing and backward-shift
+ * deletion, so adds and removes never box and never leave tombstones.
+ * Grows when half full. {@link Integer#MIN_VALUE} cannot be stored.
+ */
+public final class IntSet {
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int mask;
+    private int size;
+
+    public IntSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 4) * 2 - 1) << 1;
+        this.keys = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int key) {
+        int i = mix(key) & mask;
+        while (true) {
+            int k = keys[i];
+            if (k == key) return true;
+            if (k == EMPTY) return false;
+            i = (i + 1) & mask;
+        }
+    }
+
+    /** Adds a key; returns false if it was already present. */
+    public boolean add(int key) {
+        int i = mix(key) & mask;
+        while (true) {
+            int k = keys[i];
+            if (k == key) return false;
+            if (k == EMPTY) break;
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        if (++size * 2 > keys.length) grow();
+        return true;
+    }
+
+    /** Removes a key; returns false if it was not present. */
+    public boolean remove(int key) {
+        int i = mix(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) return false;
+            i = (i + 1) & mask;
+        }
+
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            int k = keys[j];
+            if (k == EMPTY) break;
+            int home = mix(k) & mask;
+            // Move j into the gap if its home position is not in (gap, j]
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = k;
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        if (size == 0) return;
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private void grow() {
+        int[] old = keys;
+        keys = new int[old.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+        for (int k : old) {
+            if (k == EMPTY) continue;
+            int i = mix(k) & mask;
+            while (keys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = k;
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
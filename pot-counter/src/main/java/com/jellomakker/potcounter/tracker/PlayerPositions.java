@@ -0,0 +1,177 @@
+package com.jellomakker.potcounter.tracker;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Flat snapshot of player positions used for nearest-player attribution.
+ * Distances are compared squared, so a query never takes a square root.
+ * Reused between fills; only touched from the client thread.
+ *
+ * Once a snapshot holds more than a handful of players, the first query
+ * buckets them into a uniform grid of x/z columns as wide as the query
+ * radius, so each query only looks at the players in the columns it
+ * overlaps. The grid is rebuilt after the snapshot changes.
+ */
+public final class PlayerPositions {
+    /** Below this many players a plain scan beats building the grid. */
+    private static final int GRID_MIN_PLAYERS = 16;
+
+    private int[] entityIds = new int[64];
+    private UUID[] uuids = new UUID[64];
+    private double[] xs = new double[64];
+    private double[] ys = new double[64];
+    private double[] zs = new double[64];
+    private int size;
+
+    // Grid: column key -> first player in it, then chained through nextInColumn
+    private long[] columnKeys = new long[0];
+    private int[] columnHeads = new int[0];
+    private int columnMask;
+    private int[] nextInColumn = new int[64];
+    private double columnSize;
+    private boolean gridReady;
+
+    public void clear() {
+        Arrays.fill(uuids, 0, size, null);
+        size = 0;
+        gridReady = false;
+    }
+
+    public void add(int entityId, UUID uuid, double x, double y, double z) {
+        if (size == entityIds.length) grow();
+        entityIds[size] = entityId;
+        uuids[size] = uuid;
+        xs[size] = x;
+        ys[size] = y;
+        zs[size] = z;
+        size++;
+        gridReady = false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int entityId(int index) {
+        return entityIds[index];
+    }
+
+    public UUID uuid(int index) {
+        return uuids[index];
+    }
+
+    public double x(int index) {
+        return xs[index];
+    }
+
+    public double y(int index) {
+        return ys[index];
+    }
+
+    public double z(int index) {
+        return zs[index];
+    }
+
+    /**
+     * Index of the nearest player strictly closer than {@code maxDistance},
+     * or -1. Ties go to the player added first.
+     */
+    public int nearest(double x, double y, double z, double maxDistance) {
+        if (size < GRID_MIN_PLAYERS || !(maxDistance > 0)) {
+            return scan(x, y, z, maxDistance);
+        }
+        if (!gridReady || columnSize != maxDistance) buildGrid(maxDistance);
+
+        double closestSq = maxDistance * maxDistance;
+        int closest = -1;
+        int minX = column(x - maxDistance);
+        int maxX = column(x + maxDistance);
+        int minZ = column(z - maxDistance);
+        int maxZ = column(z + maxDistance);
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                for (int i = head(columnKey(cx, cz)); i >= 0; i = nextInColumn[i]) {
+                    double dx = xs[i] - x;
+                    double dy = ys[i] - y;
+                    double dz = zs[i] - z;
+                    double distSq = dx * dx + dy * dy + dz * dz;
+                    if (distSq < closestSq || (distSq == closestSq && closest >= 0 && i < closest)) {
+                        closestSq = distSq;
+                        closest = i;
+                    }
+                }
+            }
+        }
+        return closest;
+    }
+
+    private int scan(double x, double y, double z, double maxDistance) {
+        double closestSq = maxDistance * maxDistance;
+        int closest = -1;
+        for (int i = 0; i < size; i++) {
+            double dx = xs[i] - x;
+            double dy = ys[i] - y;
+            double dz = zs[i] - z;
+            double distSq = dx * dx + dy * dy + dz * dz;
+            if (distSq < closestSq) {
+                closestSq = distSq;
+                closest = i;
+            }
+        }
+        return closest;
+    }
+
+    private void buildGrid(double cellSize) {
+        columnSize = cellSize;
+        int capacity = Integer.highestOneBit(size * 2 - 1) << 1;
+        if (columnHeads.length != capacity) {
+            columnKeys = new long[capacity];
+            columnHeads = new int[capacity];
+            columnMask = capacity - 1;
+        }
+        Arrays.fill(columnHeads, -1);
+
+        for (int i = 0; i < size; i++) {
+            long key = columnKey(column(xs[i]), column(zs[i]));
+            int slot = slot(key);
+            if (columnHeads[slot] < 0) columnKeys[slot] = key;
+            nextInColumn[i] = columnHeads[slot];
+            columnHeads[slot] = i;
+        }
+        gridReady = true;
+    }
+
+    /** First player in a column, or -1. */
+    private int head(long key) {
+        return columnHeads[slot(key)];
+    }
+
+    /** Slot holding {@code key}, or the empty slot where it would go. */
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        int i = (int) (h ^ (h >>> 32)) & columnMask;
+        while (columnHeads[i] >= 0 && columnKeys[i] != key) {
+            i = (i + 1) & columnMask;
+        }
+        return i;
+    }
+
+    private int column(double coordinate) {
+        return (int) Math.floor(coordinate / columnSize);
+    }
+
+    private static long columnKey(int cx, int cz) {
+        return (long) cx << 32 | (cz & 0xFFFFFFFFL);
+    }
+
+    private void grow() {
+        int capacity = entityIds.length * 2;
+        entityIds = Arrays.copyOf(entityIds, capacity);
+        uuids = Arrays.copyOf(uuids, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        zs = Arrays.copyOf(zs, capacity);
+        nextInColumn = Arrays.copyOf(nextInColumn, capacity);
+    }
+}
@@ -0,0 +1,65 @@
+package com.jellomakker.potcounter.tracker;
+
+/**
+ * A player's throw counts for every potion type, packed into one
+ * {@code long}: {@link #TYPES} fields of {@link #BITS} bits, type 0 in the
+ * lowest bits. Fields saturate at {@link #MAX} instead of overflowing into
+ * the next type. The top bits stay clear, so a packed value is never
+ * negative and -1 is free as a "none" marker.
+ */
+public final class PotCounts {
+    public static final int HEALING = 0;
+    public static final int HARMING = 1;
+    public static final int STRENGTH = 2;
+    public static final int SPEED = 3;
+    /** Any other tracked potion. */
+    public static final int OTHER = 4;
+    public static final int TYPES = 5;
+
+    public static final int BITS = 12;
+    public static final int MAX = (1 << BITS) - 1;
+
+    private static final String[] NAMES = {"healing", "harming", "strength", "speed", "other"};
+
+    private PotCounts() {
+    }
+
+    public static int get(long packed, int type) {
+        return (int) (packed >>> (type * BITS)) & MAX;
+    }
+
+    /** Adds {@code delta} to one type, clamped to 0..{@link #MAX}. */
+    public static long add(long packed, int type, int delta) {
+        int count = Math.max(0, Math.min(MAX, get(packed, type) + delta));
+        return with(packed, type, count);
+    }
+
+    public static long with(long packed, int type, int count) {
+        int shift = type * BITS;
+        return (packed & ~((long) MAX << shift)) | ((long) count << shift);
+    }
+
+    public static int total(long packed) {
+        int total = 0;
+        for (int type = 0; type < TYPES; type++) {
+            total += get(packed, type);
+        }
+        return total;
+    }
+
+    public static String name(int type) {
+        return NAMES[type];
+    }
+
+    /** Readable form, e.g. {@code healing=12 speed=3}. */
+    public static String toString(long packed) {
+        StringBuilder out = new StringBuilder();
+        for (int type = 0; type < TYPES; type++) {
+            int count = get(packed, type);
+            if (count == 0) continue;
+            if (out.length() > 0) out.append(' ');
+            out.append(NAMES[type]).append('=').append(count);
+        }
+        return out.length() > 0 ? out.toString() : "none";
+    }
+}
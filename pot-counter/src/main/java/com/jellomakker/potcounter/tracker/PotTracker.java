@@ -0,0 +1,245 @@
+package com.jellomakker.potcounter.tracker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pot counting pipeline without any game types: player lifecycle, potion
+ * de-duplication and thrower attribution. The client feeds it from
+ * entity events and its end-of-tick potion pass; the capture replayer feeds
+ * it from a recording.
+ */
+public final class PotTracker {
+    /** Throws with no known thrower are attributed to the nearest player within this many blocks of the potion. */
+    public static final double ATTRIBUTION_RANGE = 20.0;
+
+    /** Fills in the current player positions when a throw first needs attributing in a tick. */
+    public interface PositionSource {
+        void snapshot(PlayerPositions into);
+    }
+
+    /** Told about every count change, e.g. to persist it. */
+    public interface CountListener {
+        /** @param type one of the {@link PotCounts} types */
+        void countChanged(UUID uuid, int type, int delta);
+
+        void countsReset();
+    }
+
+    /** How long the count of a player who left tracking range is kept: 30 minutes. */
+    public static final long DEPARTED_TTL_TICKS = 30 * 60 * 20;
+    /** Most departed players remembered at once; the longest-gone are forgotten first. */
+    public static final int DEPARTED_CAPACITY = 4096;
+
+    /** Per-type throw counts, packed as {@link PotCounts}, one slot per counted player. */
+    private final CountTable counts = new CountTable();
+
+    /** Counts to give players when they are first loaded, e.g. restored from disk. Consumed on use. */
+    private final Map<UUID, Long> seeds = new HashMap<>();
+
+    private CountListener listener;
+
+    /** Entity network ID → UUID, read by the renderer mixin. */
+    private final Map<Integer, UUID> idToUuid = new ConcurrentHashMap<>();
+
+    /** UUIDs of players currently loaded in the client world. */
+    private final Set<UUID> loaded = new HashSet<>();
+
+    /**
+     * Players whose entity unloaded this tick. At the end of the tick their
+     * counts move to {@link #departedCounts} unless they were loaded again
+     * (e.g. a same-tick respawn).
+     */
+    private final List<UUID> departed = new ArrayList<>();
+
+    /** Counts of players who left, given back when they are loaded again. */
+    private final DepartedCounts departedCounts = new DepartedCounts(DEPARTED_CAPACITY, DEPARTED_TTL_TICKS);
+
+    /** Ticks since the tracker was created; times departures. */
+    private long tick;
+
+    /** Potion entity IDs already processed (counted or rejected), until the potion unloads. */
+    private final IntSet seenPotions = new IntSet(64);
+
+    private final PlayerPositions positions = new PlayerPositions();
+    private boolean positionsReady;
+
+    /** Loaded players by total throws, for the top players panel. */
+    private final Ranking ranking = new Ranking();
+
+    public void setListener(CountListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Counts restored from disk, by UUID, added to whatever was counted
+     * before they arrived. Loaded players pick theirs up now; everyone else
+     * when they are next loaded.
+     */
+    public void seed(Map<UUID, Long> restored) {
+        seeds.clear();
+        seeds.putAll(restored);
+        for (UUID uuid : loaded) {
+            applySeed(uuid);
+            rank(uuid);
+        }
+    }
+
+    public void onPlayerLoad(int entityId, UUID uuid) {
+        idToUuid.put(entityId, uuid);
+        loaded.add(uuid);
+        long count = departedCounts.take(uuid);
+        if (count != DepartedCounts.NONE && counts.slot(uuid) == CountTable.NONE) {
+            counts.setCounts(counts.acquire(uuid), count);
+        }
+        if (!seeds.isEmpty()) applySeed(uuid);
+        rank(uuid);
+    }
+
+    public void onPlayerUnload(int entityId, UUID uuid) {
+        idToUuid.remove(entityId);
+        loaded.remove(uuid);
+        departed.add(uuid);
+    }
+
+    /** Entity ids are per world, so every binding is dropped on a world switch. */
+    public void onWorldChange() {
+        seenPotions.clear();
+        idToUuid.clear();
+        departed.addAll(loaded);
+        loaded.clear();
+    }
+
+    /** Returns true the first time a potion entity id is seen. */
+    public boolean firstSighting(int potionId) {
+        return seenPotions.add(potionId);
+    }
+
+    /** A potion entity unloaded; its id may be handed out again. */
+    public void onPotionGone(int potionId) {
+        seenPotions.remove(potionId);
+    }
+
+    /**
+     * Attributes a tracked throw to its thrower, or to the nearest player
+     * when the thrower is unknown. Positions are snapshotted at most once
+     * per tick, and only for throws that need them.
+     *
+     * @param type     the {@link PotCounts} type the potion counts as
+     * @param thrower  player that threw the potion, from its spawn packet, or null
+     * @param excluded player that never gets counted (self), or null
+     */
+    public void onThrow(double x, double y, double z, int type, UUID thrower, UUID excluded,
+                        PositionSource source) {
+        if (thrower != null) {
+            count(thrower, type, excluded);
+            return;
+        }
+
+        if (!positionsReady) {
+            positions.clear();
+            source.snapshot(positions);
+            positionsReady = true;
+        }
+
+        int closest = positions.nearest(x, y, z, ATTRIBUTION_RANGE);
+        if (closest < 0) return;
+
+        count(positions.uuid(closest), type, excluded);
+    }
+
+    private void count(UUID uuid, int type, UUID excluded) {
+        if (uuid.equals(excluded)) return;
+        int slot = counts.acquire(uuid);
+        long packed = PotCounts.add(counts.counts(slot), type, 1);
+        counts.setCounts(slot, packed);
+        ranking.set(uuid, PotCounts.total(packed));
+        if (listener != null) listener.countChanged(uuid, type, 1);
+    }
+
+    /** Sets aside the counts of players that unloaded this tick and did not come back. */
+    public void endTick() {
+        positionsReady = false;
+
+        for (int i = 0; i < departed.size(); i++) {
+            UUID uuid = departed.get(i);
+            if (!loaded.contains(uuid)) {
+                int slot = counts.slot(uuid);
+                if (slot != CountTable.NONE) {
+                    departedCounts.put(uuid, counts.counts(slot), tick);
+                    counts.remove(slot);
+                }
+                ranking.remove(uuid);
+            }
+        }
+        departed.clear();
+        departedCounts.expire(tick);
+        tick++;
+    }
+
+    private void rank(UUID uuid) {
+        ranking.set(uuid, PotCounts.total(counts.get(uuid)));
+    }
+
+    private void applySeed(UUID uuid) {
+        Long seed = seeds.remove(uuid);
+        if (seed == null) return;
+        int slot = counts.acquire(uuid);
+        long packed = counts.counts(slot);
+        for (int type = 0; type < PotCounts.TYPES; type++) {
+            packed = PotCounts.add(packed, type, PotCounts.get(seed, type));
+        }
+        counts.setCounts(slot, packed);
+    }
+
+    /** The player's packed {@link PotCounts}, 0 if they have none. */
+    public long getCounts(UUID playerUuid) {
+        return counts.get(playerUuid);
+    }
+
+    public UUID getUuid(int entityId) {
+        return idToUuid.get(entityId);
+    }
+
+    /** Loaded players by entity id; the live view backing {@link #getUuid}. */
+    public Map<Integer, UUID> players() {
+        return idToUuid;
+    }
+
+    /** Loaded players with a count, highest total first. */
+    public Ranking ranking() {
+        return ranking;
+    }
+
+    /** Counted players; the live view backing {@link #getCounts}. */
+    public CountTable counts() {
+        return counts;
+    }
+
+    public void resetCounts() {
+        counts.clear();
+        departedCounts.clear();
+        seeds.clear();
+        ranking.clear();
+        if (listener != null) listener.countsReset();
+        seenPotions.clear();
+    }
+
+    /** Forgets every player, e.g. on disconnect. Not a reset: listeners are not told. */
+    public void clear() {
+        counts.clear();
+        departedCounts.clear();
+        seeds.clear();
+        idToUuid.clear();
+        loaded.clear();
+        departed.clear();
+        ranking.clear();
+        seenPotions.clear();
+    }
+}
@@ -2,11 +2,15 @@ package com.jellomakker.potcounter.ui;
 
 import com.jellomakker.potcounter.PotCounterClient;
 import com.jellomakker.potcounter.config.PotCounterConfig;
+import com.jellomakker.potcounter.render.LabelCompositor;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.gui.widget.ButtonWidget;
 import net.minecraft.text.Text;
 
 public class PotCounterConfigScreen extends Screen {
+    private static final int[] LABEL_DISTANCES = {32, 64, 128, 0};
+    private static final int[] TOP_PLAYERS = {0, 3, 5, 10};
+
     private final Screen parent;
 
     private final PotCounterConfig config = PotCounterConfig.get();
@@ -15,6 +19,9 @@ public class PotCounterConfigScreen extends Screen {
     private ButtonWidget showOnNameButton;
     private ButtonWidget includeSelfButton;
     private ButtonWidget showBackgroundButton;
+    private ButtonWidget persistButton;
+    private ButtonWidget labelDistanceButton;
+    private ButtonWidget topPlayersButton;
 
     public PotCounterConfigScreen(Screen parent) {
         super(Text.literal("Pot Counter"));
@@ -48,22 +55,47 @@ public class PotCounterConfigScreen extends Screen {
             this.config.showBackground = !this.config.showBackground;
             this.updateLabels();
         }).dimensions(centerX - width / 2, y + spacing * 3, width, height).build();
+        // Only the counter that draws the combined label reads its background setting
+        this.showBackgroundButton.visible = LabelCompositor.composing();
+
+        this.persistButton = ButtonWidget.builder(Text.empty(), button -> {
+            this.config.persistCounts = !this.config.persistCounts;
+            this.updateLabels();
+        }).dimensions(centerX - width / 2, y + spacing * 4, width, height).build();
+
+        this.labelDistanceButton = ButtonWidget.builder(Text.empty(), button -> {
+            this.config.labelMaxDistance = next(LABEL_DISTANCES, this.config.labelMaxDistance);
+            this.updateLabels();
+        }).dimensions(centerX - width / 2, y + spacing * 5, width, height).build();
+
+        this.topPlayersButton = ButtonWidget.builder(Text.empty(), button -> {
+            this.config.topPlayers = next(TOP_PLAYERS, this.config.topPlayers);
+            this.updateLabels();
+        }).dimensions(centerX - width / 2, y + spacing * 6, width, height).build();
 
         this.addDrawableChild(this.enabledButton);
         this.addDrawableChild(this.showOnNameButton);
         this.addDrawableChild(this.includeSelfButton);
         this.addDrawableChild(this.showBackgroundButton);
+        this.addDrawableChild(this.persistButton);
+        this.addDrawableChild(this.labelDistanceButton);
+        this.addDrawableChild(this.topPlayersButton);
+
+        this.addDrawableChild(ButtonWidget.builder(Text.literal("Tracked Potions..."), button -> {
+            assert this.client != null;
+            this.client.setScreen(new TrackedPotionsScreen(this));
+        }).dimensions(centerX - width / 2, y + spacing * 7, width, height).build());
 
         // Reset counts button
         this.addDrawableChild(ButtonWidget.builder(Text.literal("Reset All Counts"), button -> {
             PotCounterClient.clearAll();
-        }).dimensions(centerX - width / 2, y + spacing * 5, width, height).build());
+        }).dimensions(centerX - width / 2, y + spacing * 8, width, height).build());
 
         this.addDrawableChild(ButtonWidget.builder(Text.literal("Done"), button -> {
             this.config.save();
             assert this.client != null;
             this.client.setScreen(this.parent);
-        }).dimensions(centerX - width / 2, y + spacing * 6, width, height).build());
+        }).dimensions(centerX - width / 2, y + spacing * 9, width, height).build());
 
         this.updateLabels();
     }
@@ -80,6 +112,19 @@ public class PotCounterConfigScreen extends Screen {
         this.showOnNameButton.setMessage(Text.literal("Show Counter On Name: " + onOff(this.config.showOnPlayerName)));
         this.includeSelfButton.setMessage(Text.literal("Show Counter For Self: " + onOff(this.config.includeSelfDisplay)));
         this.showBackgroundButton.setMessage(Text.literal("See Through Walls: " + onOff(this.config.showBackground)));
+        this.persistButton.setMessage(Text.literal("Remember Counts Per Server: " + onOff(this.config.persistCounts)));
+        this.labelDistanceButton.setMessage(Text.literal("Label Distance: "
+                + (this.config.labelMaxDistance > 0 ? this.config.labelMaxDistance + " Blocks" : "Unlimited")));
+        this.topPlayersButton.setMessage(Text.literal("Top Players Panel: "
+                + (this.config.topPlayers > 0 ? this.config.topPlayers + " Rows" : "OFF")));
+    }
+
+    /** Preset after {@code value} for a cycling button, wrapping around. */
+    private static int next(int[] presets, int value) {
+        for (int i = 0; i < presets.length - 1; i++) {
+            if (presets[i] == value) return presets[i + 1];
+        }
+        return presets[0];
     }
 
     private static String onOff(boolean value) {
@@ -0,0 +1,78 @@
+package com.jellomakker.potcounter.ui;
+
+import com.jellomakker.potcounter.classify.PotionGroup;
+import com.jellomakker.potcounter.config.PotCounterConfig;
+import com.jellomakker.potcounter.tracker.PotCounts;
+import net.minecraft.client.gui.screen.Screen;
+import net.minecraft.client.gui.widget.ButtonWidget;
+import net.minecraft.text.Text;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TrackedPotionsScreen extends Screen {
+    private final Screen parent;
+
+    private final PotCounterConfig config = PotCounterConfig.get();
+
+    private final List<ButtonWidget> groupButtons = new ArrayList<>();
+    private ButtonWidget labelTypesButton;
+
+    public TrackedPotionsScreen(Screen parent) {
+        super(Text.literal("Tracked Potions"));
+        this.parent = parent;
+    }
+
+    @Override
+    protected void init() {
+        if (this.config.trackedPotions == null) {
+            this.config.trackedPotions = new ArrayList<>();
+        }
+
+        int centerX = this.width / 2;
+        int y = this.height / 6;
+        int width = 260;
+        int height = 20;
+        int spacing = 24;
+
+        this.groupButtons.clear();
+        PotionGroup[] groups = PotionGroup.values();
+        for (int i = 0; i < groups.length; i++) {
+            PotionGroup group = groups[i];
+            ButtonWidget button = ButtonWidget.builder(Text.empty(), b -> {
+                group.toggleIn(this.config.trackedPotions);
+                this.updateLabels();
+            }).dimensions(centerX - width / 2, y + spacing * i, width, height).build();
+            this.groupButtons.add(button);
+            this.addDrawableChild(button);
+        }
+
+        this.labelTypesButton = ButtonWidget.builder(Text.empty(), button -> {
+            this.config.labelTypes = this.config.labelTypes % PotCounts.TYPES + 1;
+            this.updateLabels();
+        }).dimensions(centerX - width / 2, y + spacing * groups.length, width, height).build();
+        this.addDrawableChild(this.labelTypesButton);
+
+        this.addDrawableChild(ButtonWidget.builder(Text.literal("Done"), button -> {
+            this.close();
+        }).dimensions(centerX - width / 2, y + spacing * (groups.length + 2), width, height).build());
+
+        this.updateLabels();
+    }
+
+    @Override
+    public void close() {
+        this.config.save();
+        assert this.client != null;
+        this.client.setScreen(this.parent);
+    }
+
+    private void updateLabels() {
+        PotionGroup[] groups = PotionGroup.values();
+        for (int i = 0; i < groups.length; i++) {
+            boolean tracked = groups[i].isIn(this.config.trackedPotions);
+            this.groupButtons.get(i).setMessage(Text.literal(groups[i].label() + ": " + (tracked ? "ON" : "OFF")));
+        }
+        this.labelTypesButton.setMessage(Text.literal("Types Shown On Label: " + this.config.labelTypes));
+    }
+}
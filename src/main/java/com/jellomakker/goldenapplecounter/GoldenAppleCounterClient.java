@@ -1,29 +1,46 @@
 package com.jellomakker.goldenapplecounter;
 
+import com.jellomakker.goldenapplecounter.capture.InputCapture;
 import com.jellomakker.goldenapplecounter.config.GoldenAppleCounterConfig;
+import com.jellomakker.goldenapplecounter.persist.CountJournal;
+import com.jellomakker.goldenapplecounter.render.CounterLabels;
+import com.jellomakker.goldenapplecounter.render.LabelSnapshot;
+import com.jellomakker.goldenapplecounter.render.TopPlayersHud;
+import com.jellomakker.goldenapplecounter.tracker.EatTracker;
+import com.jellomakker.goldenapplecounter.tracker.GoldenAppleTracker;
+import com.jellomakker.goldenapplecounter.tracker.PlayerTable;
+import com.jellomakker.goldenapplecounter.tracker.Ranking;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.client.rendering.v1.hud.HudElementRegistry;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.AbstractClientPlayerEntity;
+import net.minecraft.client.network.ServerInfo;
 import net.minecraft.client.option.KeyBinding;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.text.Style;
 import net.minecraft.text.StyleSpriteSource;
 import net.minecraft.text.Text;
-import net.minecraft.util.Hand;
 import net.minecraft.util.Identifier;
 import org.lwjgl.glfw.GLFW;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashSet;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class GoldenAppleCounterClient implements ClientModInitializer {
     private static final Logger LOGGER = LoggerFactory.getLogger("goldenapplecounter");
@@ -32,32 +49,40 @@ public class GoldenAppleCounterClient implements ClientModInitializer {
     public static final Identifier GOLDEN_APPLE_FONT = Identifier.of(MOD_ID, "golden_apple");
     public static final String GOLDEN_APPLE_ICON = "\uE200";
 
-    private static final Map<UUID, Integer> COUNTS = new ConcurrentHashMap<>();
+    /** Per-player counts and eating state; see {@link GoldenAppleTracker}. */
+    private static final GoldenAppleTracker TRACKER = new GoldenAppleTracker();
+    private static final PlayerTable PLAYERS = TRACKER.players();
 
-    /**
-     * Per-player eating state tracking.
-     * [0] = wasEating (0 or 1)
-     * [1] = golden apple stack count in eating hand (baseline)
-     * [2] = active hand ordinal (0=MAIN, 1=OFF)
-     * [3] = grace ticks (ticks since eating stopped, for equipment sync delay)
-     */
-    private static final Map<UUID, int[]> EAT_STATE = new ConcurrentHashMap<>();
+    private static final DateTimeFormatter CAPTURE_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
 
-    /**
-     * Track the golden apple stack count per player when they are NOT eating.
-     * This lets us detect the first apple being consumed even if the stack
-     * decrements before we see isUsingItem() go true.
-     */
-    private static final Map<UUID, int[]> IDLE_STACK = new ConcurrentHashMap<>();
+    /** Open input capture, or null when capture is off. */
+    private static InputCapture capture;
 
-    /** Entity network ID → UUID, populated each tick for the renderer mixin. */
-    private static final Map<Integer, UUID> ID_TO_UUID = new ConcurrentHashMap<>();
+    /** Count journal for the current server, or null when persistence is off. */
+    private static CountJournal journal;
 
-    /** Ticks to wait after eating stops for the equipment update to arrive. */
-    private static final int GRACE_TICKS = 6;
+    /** Reads a queued player's hands from the client world when the tracker drains. */
+    private static final GoldenAppleTracker.HandSource WORLD_HANDS = entityId -> {
+        MinecraftClient client = MinecraftClient.getInstance();
+        long observation = client.world != null && client.world.getEntityById(entityId) instanceof PlayerEntity player
+                ? observe(player, GoldenAppleCounterConfig.get())
+                : GoldenAppleTracker.NO_OBSERVATION;
+        if (capture != null) capture.hands(entityId, observation);
+        return observation;
+    };
+
+    /** Window for the "eats in the last N seconds" rate, in ticks. */
+    private static final int RATE_WINDOW_TICKS = 30 * 20;
 
     private static KeyBinding resetKeybind;
 
+    // What the current label snapshot was built from
+    private static int publishedTableVersion = -1;
+    private static int publishedLabelVersion = -1;
+    private static int publishedSelfId = -1;
+    // Tick at which an eat first slides out of the rate window
+    private static long nextRateExpiry = Long.MAX_VALUE;
+
     @Override
     public void onInitializeClient() {
         GoldenAppleCounterConfig.get();
@@ -69,11 +94,33 @@ public class GoldenAppleCounterClient implements ClientModInitializer {
         ));
 
         ClientTickEvents.END_CLIENT_TICK.register(this::onTick);
+        HudElementRegistry.addLast(Identifier.of(MOD_ID, "top_players"), TopPlayersHud::render);
+        ClientEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof PlayerEntity player) {
+                TRACKER.onPlayerLoad(player.getId(), player.getUuid());
+                if (capture != null) capture.playerLoad(player.getId(), player.getUuid());
+            }
+        });
+        ClientEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof PlayerEntity) {
+                TRACKER.onPlayerUnload(entity.getId());
+                if (capture != null) capture.playerUnload(entity.getId());
+            }
+        });
+        // Entity ids are per world; drop every binding so a dimension switch can't leave stale ids behind
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> {
+            TRACKER.onWorldChange();
+            if (capture != null) capture.worldChange();
+        });
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> {
+            if (GoldenAppleCounterConfig.get().captureInputs) startCapture();
+            if (GoldenAppleCounterConfig.get().persistCounts) openJournal(client.getCurrentServerEntry());
+        });
         ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> {
-            COUNTS.clear();
-            EAT_STATE.clear();
-            IDLE_STACK.clear();
-            ID_TO_UUID.clear();
+            TRACKER.clear();
+            LabelSnapshot.publish(LabelSnapshot.EMPTY);
+            stopCapture();
+            closeJournal();
         });
 
         LOGGER.info("[GoldenAppleCounter] Initialized (rendering via EntityRendererMixin)");
@@ -90,94 +137,145 @@ public class GoldenAppleCounterClient implements ClientModInitializer {
         }
 
         GoldenAppleCounterConfig config = GoldenAppleCounterConfig.get();
-        Set<UUID> active = new HashSet<>();
 
-        for (PlayerEntity player : client.world.getPlayers()) {
-            UUID uuid = player.getUuid();
-            active.add(uuid);
-            ID_TO_UUID.put(player.getId(), uuid);
+        if (!config.packetDrivenDetection) {
+            // Indexed loop: no iterator allocation on the steady-state tick
+            List<AbstractClientPlayerEntity> players = client.world.getPlayers();
+            for (int i = 0, n = players.size(); i < n; i++) {
+                PlayerEntity player = players.get(i);
+                if (!config.includeSelfDisplay && player == client.player) continue;
 
-            if (!config.includeSelfDisplay && client.player != null
-                    && uuid.equals(client.player.getUuid())) {
-                continue;
+                long observation = observe(player, config);
+                TRACKER.poll(player.getId(), observation);
+                if (capture != null) capture.poll(player.getId(), observation);
             }
+        } else if (config.includeSelfDisplay && client.player != null) {
+            // The server never sends equipment updates for our own hands, so poll self
+            TRACKER.queue(client.player.getId());
+            if (capture != null) capture.queue(client.player.getId());
+        }
 
-            // --- Golden apple tracking ---
-            boolean eating = player.isUsingItem()
-                    && isTrackedApple(player.getActiveItem().getItem(), config);
-
-            int[] s = EAT_STATE.computeIfAbsent(uuid, k -> new int[]{0, 0, 0, 0});
-
-            if (eating) {
-                Hand hand = player.getActiveHand();
-                int handCount = player.getStackInHand(hand).getCount();
-
-                if (s[0] == 0) {
-                    int[] idle = IDLE_STACK.get(uuid);
-                    if (idle != null && idle[0] == hand.ordinal() && idle[1] > handCount) {
-                        int missed = idle[1] - handCount;
-                        for (int i = 0; i < missed; i++) increment(uuid);
-                    }
-                    s[0] = 1;
-                    s[1] = handCount;
-                    s[2] = hand.ordinal();
-                    s[3] = 0;
-                } else {
-                    if (handCount < s[1]) {
-                        increment(uuid);
-                        s[1] = handCount;
-                    }
-                }
-            } else {
-                if (s[0] == 1) {
-                    Hand hand = Hand.values()[s[2]];
-                    Item handItem = player.getStackInHand(hand).getItem();
-                    boolean stillHasApple = handItem == Items.GOLDEN_APPLE
-                            || handItem == Items.ENCHANTED_GOLDEN_APPLE;
-                    int handCount = stillHasApple ? player.getStackInHand(hand).getCount() : -1;
-
-                    if (handCount >= 0 && handCount < s[1]) {
-                        increment(uuid);
-                        resetState(s);
-                    } else if (!stillHasApple) {
-                        if (s[1] == 1 || player.getStackInHand(hand).isEmpty()) {
-                            increment(uuid);
-                        }
-                        resetState(s);
-                    } else {
-                        s[3]++;
-                        if (s[3] > GRACE_TICKS) {
-                            resetState(s);
-                        }
-                    }
-                }
-
-                updateIdleStack(uuid, player);
+        TRACKER.endTick(WORLD_HANDS);
+        if (capture != null) {
+            capture.tick();
+            if (capture.failed()) {
+                LOGGER.warn("[GoldenAppleCounter] Input capture failed to write, stopping");
+                stopCapture();
+            }
+        }
+        if (journal != null) {
+            journal.flush();
+            Map<UUID, Integer> restored = journal.takeRestored();
+            if (restored != null) TRACKER.seed(restored);
+            if (journal.failed()) {
+                LOGGER.warn("[GoldenAppleCounter] Count journal failed to read or write, counts are no longer saved");
+                closeJournal();
             }
         }
+        publishLabels(client, config);
+    }
+
+    /**
+     * Rebuilds the renderer's label snapshot when counts, bindings or settings
+     * changed since the last one, or when an eat leaves the rate window.
+     * Nothing is allocated on ticks where nothing changed.
+     */
+    private static void publishLabels(MinecraftClient client, GoldenAppleCounterConfig config) {
+        int selfId = client.player != null ? client.player.getId() : -1;
+        if (publishedTableVersion == PLAYERS.version()
+                && publishedLabelVersion == CounterLabels.version()
+                && publishedSelfId == selfId
+                && (!config.showEatRate || PLAYERS.tick() < nextRateExpiry)) {
+            return;
+        }
+        publishedTableVersion = PLAYERS.version();
+        publishedLabelVersion = CounterLabels.version();
+        publishedSelfId = selfId;
+        nextRateExpiry = Long.MAX_VALUE;
+
+        if (!config.enabled || !config.showOnPlayerName) {
+            LabelSnapshot.publish(LabelSnapshot.EMPTY);
+            return;
+        }
 
-        COUNTS.keySet().retainAll(active);
-        EAT_STATE.keySet().retainAll(active);
-        IDLE_STACK.keySet().retainAll(active);
-        ID_TO_UUID.values().retainAll(active);
+        int visible = 0;
+        for (int slot = 0, n = PLAYERS.slotLimit(); slot < n; slot++) {
+            if (PLAYERS.isBound(slot) && PLAYERS.count(slot) > 0) visible++;
+        }
+
+        LabelSnapshot.Builder builder = LabelSnapshot.builder(visible);
+        for (int slot = 0, n = PLAYERS.slotLimit(); slot < n; slot++) {
+            if (!PLAYERS.isBound(slot) || PLAYERS.count(slot) <= 0) continue;
+            int entityId = PLAYERS.entityId(slot);
+            if (!config.includeSelfDisplay && entityId == selfId) continue;
+            builder.put(entityId, config.showEatRate ? rateLabel(slot) : CounterLabels.get(PLAYERS.count(slot)));
+        }
+        LabelSnapshot.publish(builder.build());
     }
 
-    private void updateIdleStack(UUID uuid, PlayerEntity player) {
-        for (Hand hand : Hand.values()) {
-            Item item = player.getStackInHand(hand).getItem();
-            if (item == Items.GOLDEN_APPLE || item == Items.ENCHANTED_GOLDEN_APPLE) {
-                IDLE_STACK.put(uuid, new int[]{hand.ordinal(), player.getStackInHand(hand).getCount()});
-                return;
-            }
+    private static Text rateLabel(int slot) {
+        long windowStart = PLAYERS.tick() - RATE_WINDOW_TICKS;
+        long oldest = PLAYERS.oldestEatSince(slot, windowStart);
+        if (oldest >= 0) {
+            nextRateExpiry = Math.min(nextRateExpiry, oldest + RATE_WINDOW_TICKS + 1);
         }
-        IDLE_STACK.remove(uuid);
+        return CounterLabels.withRate(PLAYERS.count(slot), PLAYERS.eatsSince(slot, windowStart),
+                RATE_WINDOW_TICKS / 20, PLAYERS.averageEatInterval(slot));
     }
 
-    private static void resetState(int[] s) {
-        s[0] = 0;
-        s[1] = 0;
-        s[2] = 0;
-        s[3] = 0;
+    /**
+     * Called from {@link com.jellomakker.goldenapplecounter.mixin.ClientPlayNetworkHandlerMixin}
+     * after an equipment update has been applied. A stack decrement while the
+     * player is eating is committed straight away; anything else is observed
+     * at the end of the tick.
+     */
+    public static void onEquipmentUpdate(int entityId) {
+        GoldenAppleCounterConfig config = GoldenAppleCounterConfig.get();
+        PlayerEntity player = trackedPlayer(entityId, config);
+        if (player == null) return;
+
+        long observation = observe(player, config);
+        TRACKER.onEquipment(entityId, player.getUuid(), observation);
+        if (capture != null) capture.equipment(entityId, observation);
+    }
+
+    /**
+     * Called from {@link com.jellomakker.goldenapplecounter.mixin.ClientPlayNetworkHandlerMixin}
+     * after a tracker update (which carries the living "using item" flag) has been applied.
+     */
+    public static void onTrackerUpdate(int entityId) {
+        GoldenAppleCounterConfig config = GoldenAppleCounterConfig.get();
+        PlayerEntity player = trackedPlayer(entityId, config);
+        if (player == null) return;
+
+        TRACKER.onTracker(entityId, player.getUuid());
+        if (capture != null) capture.tracker(entityId);
+    }
+
+    private static PlayerEntity trackedPlayer(int entityId, GoldenAppleCounterConfig config) {
+        if (!config.packetDrivenDetection) return null;
+
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (client.world == null) return null;
+        if (!(client.world.getEntityById(entityId) instanceof PlayerEntity player)) return null;
+        if (!config.includeSelfDisplay && player == client.player) return null;
+        return player;
+    }
+
+    /** Packs the player's current hands for the eating state machine. */
+    private static long observe(PlayerEntity player, GoldenAppleCounterConfig config) {
+        boolean eating = player.isUsingItem()
+                && isTrackedApple(player.getActiveItem().getItem(), config);
+        return GoldenAppleTracker.observation(eating, player.getActiveHand().ordinal(),
+                appleCount(player.getMainHandStack()), appleCount(player.getOffHandStack()));
+    }
+
+    private static int appleCount(ItemStack stack) {
+        if (stack.isEmpty()) return 0;
+        Item item = stack.getItem();
+        return item == Items.GOLDEN_APPLE || item == Items.ENCHANTED_GOLDEN_APPLE
+                ? stack.getCount()
+                : EatTracker.OTHER_ITEM;
     }
 
     private static boolean isTrackedApple(Item item, GoldenAppleCounterConfig config) {
@@ -185,17 +283,65 @@ public class GoldenAppleCounterClient implements ClientModInitializer {
                 || (item == Items.ENCHANTED_GOLDEN_APPLE && config.countEnchantedGoldenApple);
     }
 
-    public static void increment(UUID playerUuid) {
-        COUNTS.merge(playerUuid, 1, Integer::sum);
+    private static void startCapture() {
+        stopCapture();
+        Path file = FabricLoader.getInstance().getGameDir().resolve("captures")
+                .resolve(MOD_ID + "-" + LocalDateTime.now().format(CAPTURE_NAME) + ".bin");
+        try {
+            capture = InputCapture.open(file);
+        } catch (IOException e) {
+            LOGGER.warn("[GoldenAppleCounter] Could not open input capture {}: {}", file, e.toString());
+            return;
+        }
+
+        // Players loaded before the connection finished joining
+        for (int slot = 0, n = PLAYERS.slotLimit(); slot < n; slot++) {
+            if (PLAYERS.isBound(slot)) capture.playerLoad(PLAYERS.entityId(slot), PLAYERS.uuid(slot));
+        }
+        LOGGER.info("[GoldenAppleCounter] Capturing inputs to {}", file);
     }
 
-    public static int getCount(UUID playerUuid) {
-        return COUNTS.getOrDefault(playerUuid, 0);
+    private static void stopCapture() {
+        if (capture == null) return;
+        capture.close();
+        capture = null;
+    }
+
+    /**
+     * Opens the count journal for a multiplayer server. Its counts are read in
+     * the background and seeded on the tick they arrive. Singleplayer and LAN
+     * worlds have no server entry and are not persisted.
+     */
+    private static void openJournal(ServerInfo server) {
+        closeJournal();
+        if (server == null) return;
+
+        String name = server.address.replaceAll("[^A-Za-z0-9._-]", "_") + ".journal";
+        Path file = FabricLoader.getInstance().getConfigDir().resolve(MOD_ID).resolve("counts").resolve(name);
+        journal = CountJournal.open(file);
+        TRACKER.setListener(journal);
+    }
+
+    private static void closeJournal() {
+        if (journal == null) return;
+        TRACKER.setListener(null);
+        journal.close();
+        journal = null;
+    }
+
+    /** Count for an entity network id, or 0 if the player is not tracked. */
+    public static int getCount(int entityId) {
+        return TRACKER.getCount(entityId);
     }
 
     /** Look up UUID from an entity network id. */
     public static UUID getUuidFromEntityId(int entityId) {
-        return ID_TO_UUID.get(entityId);
+        return TRACKER.getUuid(entityId);
+    }
+
+    /** Players by count, highest first, read by the top players panel. */
+    public static Ranking getRanking() {
+        return TRACKER.ranking();
     }
 
     /** Build the counter text with a real golden apple icon from our custom font. */
@@ -206,9 +352,7 @@ public class GoldenAppleCounterClient implements ClientModInitializer {
     }
 
     public static void clearAll() {
-        COUNTS.clear();
-        EAT_STATE.clear();
-        IDLE_STACK.clear();
-        ID_TO_UUID.clear();
+        TRACKER.resetCounts();
+        if (capture != null) capture.reset();
     }
 }
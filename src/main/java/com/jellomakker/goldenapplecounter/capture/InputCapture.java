@@ -0,0 +1,150 @@
+package com.jellomakker.goldenapplecounter.capture;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Writes every input the golden apple tracker consumes to a compact binary
+ * file, so a session can be replayed headless with {@link InputReplay}.
+ *
+ * Layout: header (magic, version, counter id, start millis), then one event
+ * per record: a type byte followed by fixed-width big-endian fields. Hand
+ * observations made during the end-of-tick drain are written before the
+ * tick marker they belong to.
+ * Writes go to a 64 KiB buffer on the client thread. On the first I/O error
+ * the capture stops recording instead of throwing into the game.
+ */
+public final class InputCapture implements AutoCloseable {
+    public static final int MAGIC = 0x43434150; // "CCAP"
+    public static final short VERSION = 1;
+    public static final byte COUNTER_ID = 1;
+
+    static final byte TICK = 1;
+    static final byte PLAYER_LOAD = 2;
+    static final byte PLAYER_UNLOAD = 3;
+    static final byte WORLD_CHANGE = 4;
+    static final byte EQUIPMENT = 5;
+    static final byte TRACKER = 6;
+    static final byte QUEUE = 7;
+    static final byte POLL = 8;
+    static final byte RESET = 9;
+    static final byte HANDS = 10;
+
+    private final DataOutputStream out;
+    private boolean failed;
+
+    private InputCapture(DataOutputStream out) {
+        this.out = out;
+    }
+
+    public static InputCapture open(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeByte(COUNTER_ID);
+        out.writeLong(System.currentTimeMillis());
+        return new InputCapture(out);
+    }
+
+    public boolean failed() {
+        return failed;
+    }
+
+    public void tick() {
+        if (failed) return;
+        try {
+            out.writeByte(TICK);
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    public void playerLoad(int entityId, UUID uuid) {
+        if (failed) return;
+        try {
+            out.writeByte(PLAYER_LOAD);
+            out.writeInt(entityId);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    public void playerUnload(int entityId) {
+        entityEvent(PLAYER_UNLOAD, entityId);
+    }
+
+    public void worldChange() {
+        if (failed) return;
+        try {
+            out.writeByte(WORLD_CHANGE);
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    public void equipment(int entityId, long observation) {
+        observationEvent(EQUIPMENT, entityId, observation);
+    }
+
+    public void tracker(int entityId) {
+        entityEvent(TRACKER, entityId);
+    }
+
+    public void queue(int entityId) {
+        entityEvent(QUEUE, entityId);
+    }
+
+    /** What the hand source returned for a slot drained at the end of this tick. */
+    public void hands(int entityId, long observation) {
+        observationEvent(HANDS, entityId, observation);
+    }
+
+    public void poll(int entityId, long observation) {
+        observationEvent(POLL, entityId, observation);
+    }
+
+    public void reset() {
+        if (failed) return;
+        try {
+            out.writeByte(RESET);
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    private void entityEvent(byte type, int entityId) {
+        if (failed) return;
+        try {
+            out.writeByte(type);
+            out.writeInt(entityId);
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    private void observationEvent(byte type, int entityId, long observation) {
+        if (failed) return;
+        try {
+            out.writeByte(type);
+            out.writeInt(entityId);
+            out.writeLong(observation);
+        } catch (IOException e) {
+            failed = true;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.jellomakker.goldenapplecounter.capture;
+
+import com.jellomakker.goldenapplecounter.tracker.GoldenAppleTracker;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Feeds an {@link InputCapture} recording back through {@link GoldenAppleTracker}
+ * as fast as possible, without the game. Takes the whole recording in memory,
+ * so timing a replay covers decoding and counting only. The command-line
+ * driver that times and prints replays lives in the benchmarks project.
+ */
+public final class InputReplay {
+    private InputReplay() {
+    }
+
+    public static Result replay(byte[] capture) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(capture));
+        if (in.readInt() != InputCapture.MAGIC || in.readShort() != InputCapture.VERSION
+                || in.readByte() != InputCapture.COUNTER_ID) {
+            throw new IOException("Not a golden apple counter capture");
+        }
+        in.readLong(); // start millis
+
+        GoldenAppleTracker tracker = new GoldenAppleTracker();
+        Map<Integer, UUID> uuids = new HashMap<>();
+        // Hands seen by the live drain, recorded ahead of each tick marker
+        Map<Integer, Long> drained = new HashMap<>();
+        GoldenAppleTracker.HandSource source =
+                entityId -> drained.getOrDefault(entityId, GoldenAppleTracker.NO_OBSERVATION);
+
+        long events = 0;
+        long ticks = 0;
+        try {
+            while (true) {
+                byte type = in.readByte();
+                events++;
+                switch (type) {
+                    case InputCapture.TICK -> {
+                        tracker.endTick(source);
+                        drained.clear();
+                        ticks++;
+                    }
+                    case InputCapture.PLAYER_LOAD -> {
+                        int entityId = in.readInt();
+                        UUID uuid = new UUID(in.readLong(), in.readLong());
+                        uuids.put(entityId, uuid);
+                        tracker.onPlayerLoad(entityId, uuid);
+                    }
+                    case InputCapture.PLAYER_UNLOAD -> {
+                        int entityId = in.readInt();
+                        uuids.remove(entityId);
+                        tracker.onPlayerUnload(entityId);
+                    }
+                    case InputCapture.WORLD_CHANGE -> {
+                        uuids.clear();
+                        tracker.onWorldChange();
+                    }
+                    case InputCapture.EQUIPMENT -> {
+                        int entityId = in.readInt();
+                        long observation = in.readLong();
+                        UUID uuid = uuids.get(entityId);
+                        if (uuid != null) tracker.onEquipment(entityId, uuid, observation);
+                    }
+                    case InputCapture.TRACKER -> {
+                        int entityId = in.readInt();
+                        UUID uuid = uuids.get(entityId);
+                        if (uuid != null) tracker.onTracker(entityId, uuid);
+                    }
+                    case InputCapture.QUEUE -> tracker.queue(in.readInt());
+                    case InputCapture.POLL -> tracker.poll(in.readInt(), in.readLong());
+                    case InputCapture.HANDS -> drained.put(in.readInt(), in.readLong());
+                    case InputCapture.RESET -> tracker.resetCounts();
+                    default -> throw new IOException("Unknown event type " + type + " after " + events + " events");
+                }
+            }
+        } catch (EOFException ignored) {
+            // End of the recording
+        }
+        return new Result(tracker, events, ticks);
+    }
+
+    /** The tracker after the last event, and how many events and ticks were replayed. */
+    public record Result(GoldenAppleTracker tracker, long events, long ticks) {
+    }
+}
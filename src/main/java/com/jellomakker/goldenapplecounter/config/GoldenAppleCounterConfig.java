@@ -3,6 +3,7 @@ package com.jellomakker.goldenapplecounter.config;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParseException;
+import com.jellomakker.goldenapplecounter.render.CounterLabels;
 import net.fabricmc.loader.api.FabricLoader;
 
 import java.io.IOException;
@@ -20,8 +21,35 @@ public class GoldenAppleCounterConfig {
     public boolean countEnchantedGoldenApple = true;
     public boolean showOnPlayerName = true;
     public boolean includeSelfDisplay = false;
-    /** When false, the counter label won't show through blocks (no see-through background). */
+    /**
+     * When false, the counter label won't show through blocks (no see-through
+     * background). Only read by the counter that draws the combined label.
+     */
     public boolean showBackground = true;
+    /**
+     * When true, players are only observed when an equipment or tracker packet
+     * arrives for them (or while they are mid-eat). When false, every player is
+     * polled every tick.
+     */
+    public boolean packetDrivenDetection = true;
+    /** Appends eats in the last 30 seconds and the average time between eats to the label. */
+    public boolean showEatRate = false;
+    /** Saves counts per server so they survive a crash or reconnect. */
+    public boolean persistCounts = false;
+    /** This counter's part of the label is not drawn past this many blocks; 0 draws it at any distance. */
+    public int labelMaxDistance = 64;
+    /**
+     * Past this many blocks this counter's part of the label shrinks to its
+     * icon; 0 always draws it in full. Config-file only.
+     */
+    public int iconOnlyDistance = 32;
+    /** Rows in the top players panel; 0 hides this counter from the panel. */
+    public int topPlayers = 0;
+    /**
+     * Records every tracker input to {@code captures/} in the game directory
+     * for headless replay. Config-file only; meant for debugging and profiling.
+     */
+    public boolean captureInputs = false;
 
     public static GoldenAppleCounterConfig get() {
         if (instance == null) {
@@ -57,5 +85,15 @@ public class GoldenAppleCounterConfig {
             Files.writeString(CONFIG_PATH, GSON.toJson(this));
         } catch (IOException ignored) {
         }
+        changed();
+    }
+
+    /**
+     * Applies edited fields right away: the renderer draws from labels and a
+     * snapshot built off the config, which are only rebuilt when this is
+     * called. Saving calls it too.
+     */
+    public void changed() {
+        CounterLabels.invalidate();
     }
 }
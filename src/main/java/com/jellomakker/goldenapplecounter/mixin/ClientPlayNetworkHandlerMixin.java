@@ -0,0 +1,33 @@
+package com.jellomakker.goldenapplecounter.mixin;
+
+import com.jellomakker.goldenapplecounter.GoldenAppleCounterClient;
+import net.minecraft.client.network.ClientPlayNetworkHandler;
+import net.minecraft.network.packet.s2c.play.EntityEquipmentUpdateS2CPacket;
+import net.minecraft.network.packet.s2c.play.EntityTrackerUpdateS2CPacket;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Drives golden apple detection from the packets that actually change a
+ * player's eating state, so the state machine only runs for players whose
+ * hands or "using item" flag changed. Both handlers bounce to the client
+ * thread before reaching TAIL, so the hooks always run on the main thread
+ * with the packet already applied to the entity.
+ */
+@Mixin(ClientPlayNetworkHandler.class)
+public class ClientPlayNetworkHandlerMixin {
+
+    /** Hand contents changed (including the stack decrement when an apple is eaten). */
+    @Inject(method = "onEntityEquipmentUpdate", at = @At("TAIL"), require = 0)
+    private void goldenAppleCounter$onEquipmentUpdate(EntityEquipmentUpdateS2CPacket packet, CallbackInfo ci) {
+        GoldenAppleCounterClient.onEquipmentUpdate(packet.getEntityId());
+    }
+
+    /** Tracked data changed; the living flags carry the "using item" bit. */
+    @Inject(method = "onEntityTrackerUpdate", at = @At("TAIL"), require = 0)
+    private void goldenAppleCounter$onTrackerUpdate(EntityTrackerUpdateS2CPacket packet, CallbackInfo ci) {
+        GoldenAppleCounterClient.onTrackerUpdate(packet.id());
+    }
+}
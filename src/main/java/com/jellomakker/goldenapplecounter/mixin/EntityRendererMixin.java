@@ -1,69 +1,86 @@
 package com.jellomakker.goldenapplecounter.mixin;
 
-import com.jellomakker.goldenapplecounter.GoldenAppleCounterClient;
 import com.jellomakker.goldenapplecounter.config.GoldenAppleCounterConfig;
-import net.minecraft.client.MinecraftClient;
+import com.jellomakker.goldenapplecounter.render.CounterLabelHolder;
+import com.jellomakker.goldenapplecounter.render.LabelCompositor;
+import com.jellomakker.goldenapplecounter.render.LabelSnapshot;
 import net.minecraft.client.render.command.OrderedRenderCommandQueue;
 import net.minecraft.client.render.entity.EntityRenderer;
 import net.minecraft.client.render.entity.state.EntityRenderState;
-import net.minecraft.client.render.entity.state.PlayerEntityRenderState;
 import net.minecraft.client.render.state.CameraRenderState;
 import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.text.Text;
 import net.minecraft.util.math.Vec3d;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
-import java.util.UUID;
-
 /**
  * Hooks into EntityRenderer.render() to draw the golden apple counter
  * above each player. Calls queue.submitLabel() directly to bypass
  * PlayerEntityRenderer's renderLabelIfPresent override, which may be
  * affected by server-side name visibility / team settings.
+ *
+ * The tick publishes a {@link LabelSnapshot} with the finished label for
+ * every player that should show one (config and self checks already
+ * applied), so this mod's part is a single lookup per entity. The label is
+ * combined with the other counter mods' by {@link LabelCompositor}; when
+ * another counter draws it, this hook does nothing.
+ *
+ * The label is composed in updateRenderState(), while the game still has
+ * the entity at hand, and kept on the render state through
+ * {@link CounterLabelHolder}; the render hook only reads it back.
  */
 @Mixin(EntityRenderer.class)
 public abstract class EntityRendererMixin<T, S extends EntityRenderState> {
 
+    /** Label offsets only differ by pose, so reuse the last one instead of allocating per frame. */
+    @Unique
+    private static double goldenAppleCounter$lastHeight = Double.NaN;
+    @Unique
+    private static Vec3d goldenAppleCounter$lastLabelPos;
+
+    @Inject(method = "updateRenderState", at = @At("RETURN"))
+    private void goldenAppleCounter$afterUpdateRenderState(Entity entity, S state, float tickProgress,
+                                                           CallbackInfo ci) {
+        if (!(state instanceof CounterLabelHolder holder)) return;
+        holder.goldenAppleCounter$setLabel(null);
+        if (!(entity instanceof PlayerEntity player) || !LabelCompositor.composing()) return;
+
+        // Players off screen never get here: the game culls entities against the frustum before extracting them
+        // Each part culls itself by its own counter's label distances
+        holder.goldenAppleCounter$setLabel(LabelCompositor.compose(player, state));
+    }
+
     @Inject(method = "render", at = @At("RETURN"))
     private void goldenAppleCounter$afterRender(S state, MatrixStack matrices,
                                                  OrderedRenderCommandQueue queue,
                                                  CameraRenderState cameraState,
                                                  CallbackInfo ci) {
-        // Only process player entities
-        if (!(state instanceof PlayerEntityRenderState playerState)) return;
+        // Only players carry a label
+        if (!(state instanceof CounterLabelHolder holder)) return;
+        Text counterText = holder.goldenAppleCounter$getLabel();
+        if (counterText == null) return;
 
-        GoldenAppleCounterConfig config = GoldenAppleCounterConfig.get();
-        if (!config.enabled || !config.showOnPlayerName) return;
-
-        // Look up UUID from entity network id
-        UUID uuid = GoldenAppleCounterClient.getUuidFromEntityId(playerState.id);
-        if (uuid == null) return;
-
-        // Skip self if configured
-        MinecraftClient client = MinecraftClient.getInstance();
-        if (!config.includeSelfDisplay && client.player != null
-                && uuid.equals(client.player.getUuid())) {
-            return;
+        double height = state.height + 0.6;
+        if (height != goldenAppleCounter$lastHeight) {
+            goldenAppleCounter$lastHeight = height;
+            goldenAppleCounter$lastLabelPos = new Vec3d(0, height, 0);
         }
 
-        int count = GoldenAppleCounterClient.getCount(uuid);
-        if (count <= 0) return;
-
-        Text counterText = GoldenAppleCounterClient.buildCounterText(count);
-        Vec3d labelPos = new Vec3d(0, state.height + 0.6, 0);
-
         // Call submitLabel directly — bypasses PlayerEntityRenderer's override
         // which may honour server team visibility settings that hide nametags.
         matrices.push();
         queue.submitLabel(
                 matrices,
-                labelPos,
+                goldenAppleCounter$lastLabelPos,
                 0,                              // y pixel offset
                 counterText,
-                config.showBackground,          // show background rectangle
+                GoldenAppleCounterConfig.get().showBackground, // show background rectangle
                 state.light,
                 state.squaredDistanceToCamera,
                 cameraState
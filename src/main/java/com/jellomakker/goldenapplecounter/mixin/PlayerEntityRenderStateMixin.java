@@ -0,0 +1,24 @@
+package com.jellomakker.goldenapplecounter.mixin;
+
+import com.jellomakker.goldenapplecounter.render.CounterLabelHolder;
+import net.minecraft.client.render.entity.state.PlayerEntityRenderState;
+import net.minecraft.text.Text;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+/** Gives every player render state a slot for its counter label. */
+@Mixin(PlayerEntityRenderState.class)
+public abstract class PlayerEntityRenderStateMixin implements CounterLabelHolder {
+    @Unique
+    private Text goldenAppleCounter$label;
+
+    @Override
+    public Text goldenAppleCounter$getLabel() {
+        return goldenAppleCounter$label;
+    }
+
+    @Override
+    public void goldenAppleCounter$setLabel(Text label) {
+        goldenAppleCounter$label = label;
+    }
+}
@@ -0,0 +1,64 @@
+package com.jellomakker.goldenapplecounter.render;
+
+import com.jellomakker.goldenapplecounter.GoldenAppleCounterClient;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Prebuilt counter labels indexed by count, so the renderer does an array
+ * read instead of building a new text tree every frame. Counts past the
+ * cache size are built on demand. Client thread only.
+ */
+public final class CounterLabels {
+    private static final int CACHE_SIZE = 256;
+    private static final Text[] LABELS = new Text[CACHE_SIZE];
+
+    /** Bumped whenever something the labels depend on changes. */
+    private static int version;
+    private static int cachedVersion;
+
+    private CounterLabels() {
+    }
+
+    public static Text get(int count) {
+        if (cachedVersion != version) {
+            Arrays.fill(LABELS, null);
+            cachedVersion = version;
+        }
+        if (count < 0 || count >= CACHE_SIZE) {
+            return GoldenAppleCounterClient.buildCounterText(count);
+        }
+
+        Text label = LABELS[count];
+        if (label == null) {
+            label = GoldenAppleCounterClient.buildCounterText(count);
+            LABELS[count] = label;
+        }
+        return label;
+    }
+
+    /**
+     * Counter label followed by the eat rate: eats in the recent window and
+     * the mean interval between eats. Built on demand, since rates change
+     * far more often than counts.
+     */
+    public static Text withRate(int count, int recent, int windowSeconds, long averageIntervalTicks) {
+        String rate = " " + recent + "/" + windowSeconds + "s";
+        if (averageIntervalTicks >= 0) {
+            rate += String.format(Locale.ROOT, " ~%.1fs", averageIntervalTicks / 20.0);
+        }
+        return get(count).copy().append(Text.literal(rate).formatted(Formatting.GRAY));
+    }
+
+    public static int version() {
+        return version;
+    }
+
+    /** Drops every cached label; they are rebuilt lazily on next use. */
+    public static void invalidate() {
+        version++;
+    }
+}
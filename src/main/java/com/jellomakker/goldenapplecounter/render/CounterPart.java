@@ -0,0 +1,33 @@
+package com.jellomakker.goldenapplecounter.render;
+
+import com.jellomakker.goldenapplecounter.GoldenAppleCounterClient;
+import com.jellomakker.goldenapplecounter.config.GoldenAppleCounterConfig;
+import net.minecraft.client.render.entity.state.EntityRenderState;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.text.Style;
+import net.minecraft.text.StyleSpriteSource;
+import net.minecraft.text.Text;
+
+import java.util.function.BiFunction;
+
+/**
+ * The golden apple counter's part of the combined player label, registered
+ * as the {@link LabelCompositor#ENTRYPOINT} entrypoint. Read from the
+ * published {@link LabelSnapshot}, which already applies the config and
+ * self checks; only this counter's label distances are applied here.
+ */
+public final class CounterPart implements BiFunction<PlayerEntity, EntityRenderState, Text> {
+    private static final Text ICON = Text.literal(GoldenAppleCounterClient.GOLDEN_APPLE_ICON)
+            .setStyle(Style.EMPTY.withFont(new StyleSpriteSource.Font(GoldenAppleCounterClient.GOLDEN_APPLE_FONT)));
+
+    @Override
+    public Text apply(PlayerEntity player, EntityRenderState state) {
+        GoldenAppleCounterConfig config = GoldenAppleCounterConfig.get();
+        double distance = state.squaredDistanceToCamera;
+        if (LabelCompositor.beyond(distance, config.labelMaxDistance)) return null;
+
+        Text label = LabelSnapshot.current().get(player.getId());
+        if (label == null) return null;
+        return LabelCompositor.beyond(distance, config.iconOnlyDistance) ? ICON : label;
+    }
+}
@@ -0,0 +1,87 @@
+package com.jellomakker.goldenapplecounter.render;
+
+import net.minecraft.text.Text;
+
+import java.util.Arrays;
+
+/**
+ * Immutable "labels to draw" view published by the tick and read by the
+ * renderer. Keyed by entity network id in an open-addressing array, so a
+ * render-side lookup is a couple of array reads. A new snapshot is built
+ * whenever counts or settings change and swapped in with a single volatile
+ * write; the renderer never sees tick-side state directly.
+ */
+public final class LabelSnapshot {
+    private static final int EMPTY_KEY = Integer.MIN_VALUE;
+
+    public static final LabelSnapshot EMPTY = new LabelSnapshot(new int[]{EMPTY_KEY}, new Text[1]);
+
+    private static volatile LabelSnapshot current = EMPTY;
+
+    private final int[] keys;
+    private final Text[] labels;
+    private final int mask;
+
+    private LabelSnapshot(int[] keys, Text[] labels) {
+        this.keys = keys;
+        this.labels = labels;
+        this.mask = keys.length - 1;
+    }
+
+    public static LabelSnapshot current() {
+        return current;
+    }
+
+    public static void publish(LabelSnapshot snapshot) {
+        current = snapshot;
+    }
+
+    /** Label for an entity id, or null if nothing should be drawn. */
+    public Text get(int entityId) {
+        int i = mix(entityId) & mask;
+        while (true) {
+            int key = keys[i];
+            if (key == entityId) return labels[i];
+            if (key == EMPTY_KEY) return null;
+            i = (i + 1) & mask;
+        }
+    }
+
+    public static Builder builder(int expected) {
+        return new Builder(expected);
+    }
+
+    public static final class Builder {
+        private final int[] keys;
+        private final Text[] labels;
+        private final int mask;
+
+        private Builder(int expected) {
+            // At most half full so probe chains stay short, and always at least one free cell
+            int capacity = Integer.highestOneBit(Math.max(expected, 1) * 2 - 1) << 1;
+            this.keys = new int[capacity];
+            this.labels = new Text[capacity];
+            this.mask = capacity - 1;
+            Arrays.fill(this.keys, EMPTY_KEY);
+        }
+
+        public Builder put(int entityId, Text label) {
+            int i = mix(entityId) & mask;
+            while (keys[i] != EMPTY_KEY && keys[i] != entityId) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = entityId;
+            labels[i] = label;
+            return this;
+        }
+
+        public LabelSnapshot build() {
+            return new LabelSnapshot(keys, labels);
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
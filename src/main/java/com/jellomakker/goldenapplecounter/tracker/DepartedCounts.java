@@ -0,0 +1,186 @@
+package com.jellomakker.goldenapplecounter.tracker;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Counts of players who left tracking range, keyed by UUID, so they can be
+ * given back when the player is tracked again.
+ *
+ * Fixed capacity chosen up front: entries live in primitive arrays, an
+ * open-addressing index finds them by UUID, and an intrusive doubly linked
+ * list orders them by departure. When full, the longest-departed entry is
+ * evicted; entries also expire after a time-to-live. Nothing allocates
+ * after construction, and counts go in and out as primitives.
+ */
+public final class DepartedCounts {
+    public static final int NONE = -1;
+
+    private static final int EMPTY = -1;
+
+    private final int capacity;
+    private final long ttl;
+
+    // Index: UUID hash -> entry, backward-shift deletion
+    private final int[] index;
+    private final int indexMask;
+
+    // Entries
+    private final long[] msbs;
+    private final long[] lsbs;
+    private final int[] counts;
+    private final long[] departedAt;
+    private final int[] prev;
+    private final int[] next;
+
+    /** Most and least recently departed entries; {@link #EMPTY} when the store is empty. */
+    private int newest = EMPTY;
+    private int oldest = EMPTY;
+    private int freeHead;
+    private int size;
+
+    /**
+     * @param capacity most entries kept at once
+     * @param ttl      how long an entry is kept, in the caller's time unit
+     */
+    public DepartedCounts(int capacity, long ttl) {
+        this.capacity = capacity;
+        this.ttl = ttl;
+        int indexSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        this.index = new int[indexSize];
+        this.indexMask = indexSize - 1;
+        this.msbs = new long[capacity];
+        this.lsbs = new long[capacity];
+        this.counts = new int[capacity];
+        this.departedAt = new long[capacity];
+        this.prev = new int[capacity];
+        this.next = new int[capacity];
+        clear();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Remembers a departed player's count, replacing any older entry for them. */
+    public void put(UUID uuid, int count, long now) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        int entry = find(msb, lsb);
+        if (entry != EMPTY) {
+            unlink(entry);
+        } else {
+            if (size == capacity) remove(oldest);
+            entry = freeHead;
+            freeHead = next[entry];
+            msbs[entry] = msb;
+            lsbs[entry] = lsb;
+            insertIndex(entry);
+            size++;
+        }
+        counts[entry] = count;
+        departedAt[entry] = now;
+        linkNewest(entry);
+    }
+
+    /** Removes and returns a player's remembered count, or {@link #NONE}. */
+    public int take(UUID uuid) {
+        if (size == 0) return NONE;
+        int entry = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        if (entry == EMPTY) return NONE;
+        int count = counts[entry];
+        remove(entry);
+        return count;
+    }
+
+    /** Drops every entry older than the time-to-live. */
+    public void expire(long now) {
+        while (oldest != EMPTY && now - departedAt[oldest] >= ttl) {
+            remove(oldest);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(index, EMPTY);
+        for (int i = 0; i < capacity; i++) {
+            next[i] = i + 1 < capacity ? i + 1 : EMPTY;
+        }
+        freeHead = 0;
+        newest = EMPTY;
+        oldest = EMPTY;
+        size = 0;
+    }
+
+    private void remove(int entry) {
+        unlink(entry);
+        removeIndex(entry);
+        next[entry] = freeHead;
+        freeHead = entry;
+        size--;
+    }
+
+    private void linkNewest(int entry) {
+        prev[entry] = EMPTY;
+        next[entry] = newest;
+        if (newest != EMPTY) prev[newest] = entry;
+        newest = entry;
+        if (oldest == EMPTY) oldest = entry;
+    }
+
+    private void unlink(int entry) {
+        if (prev[entry] != EMPTY) next[prev[entry]] = next[entry];
+        else newest = next[entry];
+        if (next[entry] != EMPTY) prev[next[entry]] = prev[entry];
+        else oldest = prev[entry];
+    }
+
+    private int find(long msb, long lsb) {
+        int i = hash(msb, lsb) & indexMask;
+        while (true) {
+            int entry = index[i];
+            if (entry == EMPTY) return EMPTY;
+            if (msbs[entry] == msb && lsbs[entry] == lsb) return entry;
+            i = (i + 1) & indexMask;
+        }
+    }
+
+    private void insertIndex(int entry) {
+        int i = hash(msbs[entry], lsbs[entry]) & indexMask;
+        while (index[i] != EMPTY) {
+            i = (i + 1) & indexMask;
+        }
+        index[i] = entry;
+    }
+
+    /** Backward-shift deletion keeps probe chains intact without tombstones. */
+    private void removeIndex(int entry) {
+        int i = hash(msbs[entry], lsbs[entry]) & indexMask;
+        while (index[i] != entry) {
+            i = (i + 1) & indexMask;
+        }
+
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & indexMask;
+            int moved = index[j];
+            if (moved == EMPTY) break;
+            int home = hash(msbs[moved], lsbs[moved]) & indexMask;
+            // Move j into the gap if its home position is not in (gap, j]
+            if (((j - home) & indexMask) >= ((j - gap) & indexMask)) {
+                index[gap] = moved;
+                gap = j;
+            }
+        }
+        index[gap] = EMPTY;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,76 @@
+package com.jellomakker.goldenapplecounter.tracker;
+
+/**
+ * Per-player golden apple eating state machine, working on plain observations
+ * of a player's hands so it can run from either the tick poll or packet hooks.
+ *
+ * Hand observations are the golden apple stack size in that hand, 0 when the
+ * hand is empty, or {@link #OTHER_ITEM} when it holds anything else.
+ */
+public final class EatTracker {
+    public static final int OTHER_ITEM = -1;
+
+    /** Ticks to wait after eating stops for the equipment update to arrive. */
+    public static final int GRACE_TICKS = 6;
+
+    private EatTracker() {
+    }
+
+    /**
+     * Advances the state machine for one slot.
+     *
+     * @param eating     whether the player is currently using a tracked apple
+     * @param activeHand active hand ordinal (only read while eating)
+     * @return true while the slot still needs observing next tick (eating or in grace)
+     */
+    public static boolean observe(PlayerTable table, int slot, boolean eating, int activeHand,
+                                  int mainHand, int offHand) {
+        if (eating) {
+            int handCount = Math.max(hand(activeHand, mainHand, offHand), 0);
+
+            if (!table.isEating(slot)) {
+                // The stack may have decremented before we saw the use flag
+                int idle = table.idleStack(slot);
+                if (idle != PlayerTable.IDLE_NONE && PlayerTable.idleHand(idle) == activeHand
+                        && PlayerTable.idleCount(idle) > handCount) {
+                    table.addCount(slot, PlayerTable.idleCount(idle) - handCount);
+                }
+                table.startEating(slot, activeHand, handCount);
+            } else if (handCount < table.baseline(slot)) {
+                table.addCount(slot, 1);
+                table.setBaseline(slot, handCount);
+            }
+            return true;
+        }
+
+        if (table.isEating(slot)) {
+            int handCount = hand(table.eatingHand(slot), mainHand, offHand);
+            boolean stillHasApple = handCount > 0;
+
+            if (stillHasApple && handCount < table.baseline(slot)) {
+                table.addCount(slot, 1);
+                table.resetEating(slot);
+            } else if (!stillHasApple) {
+                if (table.baseline(slot) == 1 || handCount == 0) {
+                    table.addCount(slot, 1);
+                }
+                table.resetEating(slot);
+            } else if (table.tickGrace(slot) > GRACE_TICKS) {
+                table.resetEating(slot);
+            }
+        }
+
+        if (mainHand > 0) {
+            table.setIdleStack(slot, 0, mainHand);
+        } else if (offHand > 0) {
+            table.setIdleStack(slot, 1, offHand);
+        } else {
+            table.clearIdleStack(slot);
+        }
+        return table.isEating(slot);
+    }
+
+    private static int hand(int hand, int mainHand, int offHand) {
+        return hand == 0 ? mainHand : offHand;
+    }
+}
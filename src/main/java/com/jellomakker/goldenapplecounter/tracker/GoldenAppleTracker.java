@@ -0,0 +1,218 @@
+package com.jellomakker.goldenapplecounter.tracker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Golden apple counting pipeline without any game types: player lifecycle,
+ * the packet-driven observation queue and the end-of-tick drain. The client
+ * feeds it from events and packet hooks; the capture replayer feeds it from
+ * a recording.
+ *
+ * Hand observations are packed into a long with {@link #observation}.
+ */
+public final class GoldenAppleTracker {
+    /** Returned by a {@link HandSource} when the entity is no longer around. */
+    public static final long NO_OBSERVATION = -1L;
+
+    /** Supplies a player's current hands when a queued slot is drained. */
+    public interface HandSource {
+        long observe(int entityId);
+    }
+
+    /** Told about every count change, e.g. to persist it. */
+    public interface CountListener {
+        void countChanged(UUID uuid, int delta);
+
+        void countsReset();
+    }
+
+    /** How long the count of a player who left tracking range is kept: 30 minutes. */
+    public static final long DEPARTED_TTL_TICKS = 30 * 60 * 20;
+    /** Most departed players remembered at once; the longest-gone are forgotten first. */
+    public static final int DEPARTED_CAPACITY = 4096;
+
+    private final PlayerTable players = new PlayerTable();
+
+    /** Counts of players who left, given back when they are tracked again. */
+    private final DepartedCounts departed = new DepartedCounts(DEPARTED_CAPACITY, DEPARTED_TTL_TICKS);
+
+    /** Counts to give players when they are first tracked, e.g. restored from disk. Consumed on use. */
+    private final Map<UUID, Integer> seeds = new HashMap<>();
+
+    private CountListener listener;
+
+    /** Tracked players by count, for the top players panel. */
+    private final Ranking ranking = new Ranking();
+
+    public PlayerTable players() {
+        return players;
+    }
+
+    /** Tracked players with a count, highest first. */
+    public Ranking ranking() {
+        return ranking;
+    }
+
+    public void setListener(CountListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Counts restored from disk, by UUID, added to whatever was counted
+     * before they arrived. Players already tracked pick theirs up now;
+     * everyone else when they are next tracked.
+     */
+    public void seed(Map<UUID, Integer> counts) {
+        seeds.clear();
+        seeds.putAll(counts);
+        for (int slot = 0, n = players.slotLimit(); slot < n; slot++) {
+            if (players.isBound(slot)) {
+                applySeed(slot);
+                ranking.set(players.uuid(slot), players.count(slot));
+            }
+        }
+    }
+
+    public void onPlayerLoad(int entityId, UUID uuid) {
+        acquire(entityId, uuid);
+    }
+
+    public void onPlayerUnload(int entityId) {
+        players.detach(entityId);
+    }
+
+    /** Entity ids are per world, so every binding is dropped on a world switch. */
+    public void onWorldChange() {
+        players.detachAll();
+    }
+
+    /**
+     * A player's equipment changed. A stack decrement while they are eating
+     * is committed straight away; anything else is observed at the end of the tick.
+     */
+    public void onEquipment(int entityId, UUID uuid, long observation) {
+        int slot = acquire(entityId, uuid);
+        if (players.isEating(slot) && !observe(slot, observation)) return;
+        players.enqueue(slot);
+    }
+
+    /** A player's tracked data (and so possibly their "using item" flag) changed. */
+    public void onTracker(int entityId, UUID uuid) {
+        players.enqueue(acquire(entityId, uuid));
+    }
+
+    /** Queues a tracked player for observation at the end of the tick. */
+    public void queue(int entityId) {
+        int slot = players.slotOf(entityId);
+        if (slot != PlayerTable.NO_SLOT) players.enqueue(slot);
+    }
+
+    /** Observes a tracked player right now (polling mode). */
+    public void poll(int entityId, long observation) {
+        int slot = players.slotOf(entityId);
+        if (slot != PlayerTable.NO_SLOT) observe(slot, observation);
+    }
+
+    /**
+     * Observes every queued slot plus players still eating or in their grace
+     * window, frees players that left this tick (remembering their counts),
+     * and advances the tick clock.
+     */
+    public void endTick(HandSource source) {
+        int n = players.beginDrain();
+        for (int i = 0; i < n; i++) {
+            int slot = players.takeDrained(i);
+            long observation = source.observe(players.entityId(slot));
+            if (observation != NO_OBSERVATION && observe(slot, observation)) {
+                players.enqueue(slot);
+            }
+        }
+        for (int i = 0, gone = players.departedCount(); i < gone; i++) {
+            int slot = players.departedSlot(i);
+            if (players.count(slot) > 0) {
+                departed.put(players.uuid(slot), players.count(slot), players.tick());
+            }
+            ranking.remove(players.uuid(slot));
+        }
+        players.releaseDeparted();
+        departed.expire(players.tick());
+        players.advanceTick();
+    }
+
+    public int getCount(int entityId) {
+        int slot = players.slotOf(entityId);
+        return slot == PlayerTable.NO_SLOT ? 0 : players.count(slot);
+    }
+
+    public UUID getUuid(int entityId) {
+        int slot = players.slotOf(entityId);
+        return slot == PlayerTable.NO_SLOT ? null : players.uuid(slot);
+    }
+
+    public void resetCounts() {
+        players.resetCounts();
+        departed.clear();
+        seeds.clear();
+        ranking.clear();
+        if (listener != null) listener.countsReset();
+    }
+
+    /** Forgets every player, e.g. on disconnect. Not a reset: listeners are not told. */
+    public void clear() {
+        players.clear();
+        departed.clear();
+        seeds.clear();
+        ranking.clear();
+    }
+
+    /**
+     * Packs one observation of a player's hands. Hand values follow
+     * {@link EatTracker}: apple stack size, 0 for empty, {@link EatTracker#OTHER_ITEM}.
+     */
+    public static long observation(boolean eating, int activeHand, int mainHand, int offHand) {
+        return (eating ? 1L : 0L)
+                | ((long) activeHand << 1)
+                | ((long) ((mainHand + 1) & 0xFFFF) << 8)
+                | ((long) ((offHand + 1) & 0xFFFF) << 24);
+    }
+
+    private int acquire(int entityId, UUID uuid) {
+        int existing = players.slotOf(entityId);
+        if (existing != PlayerTable.NO_SLOT && !uuid.equals(players.uuid(existing))) {
+            // The id now belongs to someone else, and the slot starts over for them
+            ranking.remove(players.uuid(existing));
+        }
+
+        int slot = players.acquire(entityId, uuid);
+        if (players.count(slot) == 0 && !departed.isEmpty()) {
+            int count = departed.take(uuid);
+            if (count != DepartedCounts.NONE) players.setCount(slot, count);
+        }
+        if (!seeds.isEmpty()) applySeed(slot);
+        ranking.set(uuid, players.count(slot));
+        return slot;
+    }
+
+    private void applySeed(int slot) {
+        Integer seed = seeds.remove(players.uuid(slot));
+        if (seed != null) {
+            players.setCount(slot, players.count(slot) + seed);
+        }
+    }
+
+    private boolean observe(int slot, long observation) {
+        int before = players.count(slot);
+        boolean pending = EatTracker.observe(players, slot,
+                (observation & 1L) != 0,
+                (int) (observation >>> 1) & 1,
+                (int) ((observation >>> 8) & 0xFFFF) - 1,
+                (int) ((observation >>> 24) & 0xFFFF) - 1);
+        if (players.count(slot) != before) {
+            ranking.set(players.uuid(slot), players.count(slot));
+            if (listener != null) listener.countChanged(players.uuid(slot), players.count(slot) - before);
+        }
+        return pending;
+    }
+}
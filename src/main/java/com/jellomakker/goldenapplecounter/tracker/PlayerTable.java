@@ -0,0 +1,519 @@
+package com.jellomakker.goldenapplecounter.tracker;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Slot-indexed per-player state keyed by entity network id.
+ *
+ * Every column is a primitive array indexed by slot, so once the table has
+ * grown to the lobby size, lookups and updates never box or allocate.
+ * Only touched from the client thread.
+ */
+public final class PlayerTable {
+    public static final int NO_SLOT = -1;
+
+    /** Packed eat state: bit 0 = eating, bit 1 = hand ordinal, bits 2-7 = grace ticks, bits 8+ = baseline stack. */
+    private static final int EATING_BIT = 1;
+    private static final int HAND_SHIFT = 1;
+    private static final int GRACE_SHIFT = 2;
+    private static final int GRACE_MASK = 0x3F;
+    private static final int BASELINE_SHIFT = 8;
+
+    /** Packed idle stack: (count << 1) | hand ordinal, or {@link #IDLE_NONE}. */
+    public static final int IDLE_NONE = -1;
+
+    /** Eat timestamps kept per player; older ones are overwritten. Power of two. */
+    public static final int EAT_HISTORY = 32;
+    private static final int HISTORY_MASK = EAT_HISTORY - 1;
+
+    private static final int EMPTY_KEY = Integer.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Open-addressing index: entity id -> slot
+    private int[] indexKeys;
+    private int[] indexSlots;
+    private int indexMask;
+
+    // Slot columns
+    private int[] entityIds;
+    private UUID[] uuids;
+    private int[] counts;
+    private int[] eatState;
+    private int[] idleStack;
+    private int[] queuePos;
+
+    // Eat timeline: EAT_HISTORY tick stamps per slot in one flat ring array,
+    // plus how many stamps each slot has recorded since it was last cleared
+    private long[] eatTicks;
+    private int[] eatsRecorded;
+
+    // Slots whose entity unloaded this tick; kept until the tick ends so a
+    // same-tick respawn under a new entity id can reclaim its state by UUID
+    private int[] departed;
+    private int departedSize;
+
+    // Slots waiting to be observed at the end of the tick (double-buffered)
+    private int[] pending;
+    private int[] draining;
+    private int pendingSize;
+
+    private int[] freeSlots;
+    private int freeTop;
+    private int highWater;
+    private int size;
+
+    /** Bumped on every change to bindings or counts, so readers can tell when to rebuild derived views. */
+    private int version;
+
+    /** Ticks elapsed since the table was created; stamps eat events. */
+    private long tick;
+
+    public PlayerTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        this.indexKeys = new int[capacity * 2];
+        this.indexSlots = new int[capacity * 2];
+        Arrays.fill(this.indexKeys, EMPTY_KEY);
+        this.indexMask = capacity * 2 - 1;
+
+        this.entityIds = new int[capacity];
+        this.uuids = new UUID[capacity];
+        this.counts = new int[capacity];
+        this.eatState = new int[capacity];
+        this.idleStack = new int[capacity];
+        this.queuePos = new int[capacity];
+        this.eatTicks = new long[capacity * EAT_HISTORY];
+        this.eatsRecorded = new int[capacity];
+        this.pending = new int[capacity];
+        this.draining = new int[capacity];
+        this.pendingSize = 0;
+        this.departed = new int[capacity];
+        this.departedSize = 0;
+        this.freeSlots = new int[capacity];
+        Arrays.fill(this.entityIds, EMPTY_KEY);
+        Arrays.fill(this.idleStack, IDLE_NONE);
+        Arrays.fill(this.queuePos, -1);
+        this.freeTop = 0;
+        this.highWater = 0;
+        this.size = 0;
+    }
+
+    /** Slot for an entity id, or {@link #NO_SLOT} if it is not tracked. */
+    public int slotOf(int entityId) {
+        int i = mix(entityId) & indexMask;
+        while (true) {
+            int key = indexKeys[i];
+            if (key == entityId) return indexSlots[i];
+            if (key == EMPTY_KEY) return NO_SLOT;
+            i = (i + 1) & indexMask;
+        }
+    }
+
+    /**
+     * Returns the slot for an entity id, inserting it if needed. A slot that
+     * departed this tick under the same UUID is reclaimed with its state; if
+     * the id was previously bound to a different UUID the slot is reset.
+     */
+    public int acquire(int entityId, UUID uuid) {
+        int slot = slotOf(entityId);
+        if (slot != NO_SLOT) {
+            if (!uuid.equals(uuids[slot])) {
+                uuids[slot] = uuid;
+                clearSlot(slot);
+                version++;
+            }
+            return slot;
+        }
+
+        for (int i = 0; i < departedSize; i++) {
+            slot = departed[i];
+            if (uuid.equals(uuids[slot])) {
+                departed[i] = departed[--departedSize];
+                entityIds[slot] = entityId;
+                insertIndex(entityId, slot);
+                version++;
+                return slot;
+            }
+        }
+
+        if (size == entityIds.length) grow();
+
+        slot = freeTop > 0 ? freeSlots[--freeTop] : highWater++;
+        entityIds[slot] = entityId;
+        uuids[slot] = uuid;
+        clearSlot(slot);
+        insertIndex(entityId, slot);
+        size++;
+        version++;
+        return slot;
+    }
+
+    /** Removes an entity id and frees its slot. */
+    public void release(int entityId) {
+        int slot = slotOf(entityId);
+        if (slot == NO_SLOT) return;
+        removeIndex(entityId);
+        freeSlot(slot);
+        version++;
+    }
+
+    /**
+     * Unbinds an entity id but keeps its state until {@link #releaseDeparted}
+     * so the same player can reclaim it under a new id.
+     */
+    public void detach(int entityId) {
+        int slot = slotOf(entityId);
+        if (slot == NO_SLOT) return;
+        removeIndex(entityId);
+        entityIds[slot] = EMPTY_KEY;
+        unqueue(slot);
+        departed[departedSize++] = slot;
+        version++;
+    }
+
+    /** Detaches every bound entity id, e.g. when the client switches worlds. */
+    public void detachAll() {
+        for (int slot = 0; slot < highWater; slot++) {
+            if (entityIds[slot] != EMPTY_KEY) {
+                removeIndex(entityIds[slot]);
+                entityIds[slot] = EMPTY_KEY;
+                unqueue(slot);
+                departed[departedSize++] = slot;
+            }
+        }
+        version++;
+    }
+
+    /** Number of slots that departed this tick and were not reclaimed; read them with {@link #departedSlot}. */
+    public int departedCount() {
+        return departedSize;
+    }
+
+    public int departedSlot(int i) {
+        return departed[i];
+    }
+
+    /** Frees every slot that departed and was not reclaimed. */
+    public void releaseDeparted() {
+        while (departedSize > 0) {
+            freeSlot(departed[--departedSize]);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(indexKeys, EMPTY_KEY);
+        Arrays.fill(entityIds, 0, highWater, EMPTY_KEY);
+        Arrays.fill(uuids, 0, highWater, null);
+        Arrays.fill(queuePos, 0, highWater, -1);
+        pendingSize = 0;
+        departedSize = 0;
+        freeTop = 0;
+        highWater = 0;
+        size = 0;
+        version++;
+    }
+
+    /** Zeroes every slot's count and eating state but keeps the entity bindings. */
+    public void resetCounts() {
+        Arrays.fill(counts, 0, highWater, 0);
+        Arrays.fill(eatState, 0, highWater, 0);
+        Arrays.fill(idleStack, 0, highWater, IDLE_NONE);
+        Arrays.fill(eatsRecorded, 0, highWater, 0);
+        version++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int version() {
+        return version;
+    }
+
+    public long tick() {
+        return tick;
+    }
+
+    /** Advances the clock used to stamp eat events; called once at the end of every client tick. */
+    public void advanceTick() {
+        tick++;
+    }
+
+    /** Upper bound (exclusive) for iterating slots; pair with {@link #isBound}. */
+    public int slotLimit() {
+        return highWater;
+    }
+
+    /** Whether a slot is currently bound to a loaded entity. */
+    public boolean isBound(int slot) {
+        return entityIds[slot] != EMPTY_KEY;
+    }
+
+    public int entityId(int slot) {
+        return entityIds[slot];
+    }
+
+    public UUID uuid(int slot) {
+        return uuids[slot];
+    }
+
+    // --- Count ---
+
+    public int count(int slot) {
+        return counts[slot];
+    }
+
+    /** Sets a count without touching the eat timeline, e.g. when restoring it. */
+    public void setCount(int slot, int count) {
+        counts[slot] = count;
+        version++;
+    }
+
+    /** Adds to a slot's count and stamps each eat on its timeline with the current tick. */
+    public void addCount(int slot, int amount) {
+        counts[slot] += amount;
+        int base = slot * EAT_HISTORY;
+        for (int i = Math.min(amount, EAT_HISTORY); i > 0; i--) {
+            eatTicks[base + (eatsRecorded[slot]++ & HISTORY_MASK)] = tick;
+        }
+        version++;
+    }
+
+    // --- Eat timeline ---
+
+    /** Number of eats stamped at or after {@code sinceTick}, up to {@link #EAT_HISTORY}. */
+    public int eatsSince(int slot, long sinceTick) {
+        int base = slot * EAT_HISTORY;
+        int newest = eatsRecorded[slot];
+        int n = Math.min(newest, EAT_HISTORY);
+        int found = 0;
+        while (found < n && eatTicks[base + ((newest - 1 - found) & HISTORY_MASK)] >= sinceTick) {
+            found++;
+        }
+        return found;
+    }
+
+    /**
+     * Tick stamp of the oldest eat at or after {@code sinceTick}, or -1 if
+     * there is none. That eat is the next to leave a sliding window.
+     */
+    public long oldestEatSince(int slot, long sinceTick) {
+        int found = eatsSince(slot, sinceTick);
+        return found == 0 ? -1 : eatTicks[slot * EAT_HISTORY + ((eatsRecorded[slot] - found) & HISTORY_MASK)];
+    }
+
+    /** Mean ticks between the eats still on the timeline, or -1 with fewer than two. */
+    public long averageEatInterval(int slot) {
+        int newest = eatsRecorded[slot];
+        int n = Math.min(newest, EAT_HISTORY);
+        if (n < 2) return -1;
+        int base = slot * EAT_HISTORY;
+        long last = eatTicks[base + ((newest - 1) & HISTORY_MASK)];
+        long first = eatTicks[base + ((newest - n) & HISTORY_MASK)];
+        return (last - first) / (n - 1);
+    }
+
+    // --- Eat state ---
+
+    public boolean isEating(int slot) {
+        return (eatState[slot] & EATING_BIT) != 0;
+    }
+
+    public int eatingHand(int slot) {
+        return (eatState[slot] >>> HAND_SHIFT) & 1;
+    }
+
+    public int graceTicks(int slot) {
+        return (eatState[slot] >>> GRACE_SHIFT) & GRACE_MASK;
+    }
+
+    public int baseline(int slot) {
+        return eatState[slot] >>> BASELINE_SHIFT;
+    }
+
+    public void startEating(int slot, int hand, int baseline) {
+        eatState[slot] = EATING_BIT | (hand << HAND_SHIFT) | (baseline << BASELINE_SHIFT);
+    }
+
+    public void setBaseline(int slot, int baseline) {
+        eatState[slot] = (eatState[slot] & ((1 << BASELINE_SHIFT) - 1)) | (baseline << BASELINE_SHIFT);
+    }
+
+    /** Increments grace ticks (saturating) and returns the new value. */
+    public int tickGrace(int slot) {
+        int grace = Math.min(graceTicks(slot) + 1, GRACE_MASK);
+        eatState[slot] = (eatState[slot] & ~(GRACE_MASK << GRACE_SHIFT)) | (grace << GRACE_SHIFT);
+        return grace;
+    }
+
+    public void resetEating(int slot) {
+        eatState[slot] = 0;
+    }
+
+    // --- Idle stack ---
+
+    public int idleStack(int slot) {
+        return idleStack[slot];
+    }
+
+    public void setIdleStack(int slot, int hand, int count) {
+        idleStack[slot] = (count << 1) | hand;
+    }
+
+    public void clearIdleStack(int slot) {
+        idleStack[slot] = IDLE_NONE;
+    }
+
+    public static int idleHand(int packed) {
+        return packed & 1;
+    }
+
+    public static int idleCount(int packed) {
+        return packed >>> 1;
+    }
+
+    // --- Pending observations ---
+
+    /** Queues a slot for observation at the end of the tick. No-op if already queued. */
+    public void enqueue(int slot) {
+        if (queuePos[slot] >= 0) return;
+        queuePos[slot] = pendingSize;
+        pending[pendingSize++] = slot;
+    }
+
+    /**
+     * Starts draining the pending queue and returns how many entries to read
+     * with {@link #takeDrained}. Slots re-queued while draining land in the
+     * next batch.
+     */
+    public int beginDrain() {
+        int[] swap = draining;
+        draining = pending;
+        pending = swap;
+        int n = pendingSize;
+        pendingSize = 0;
+        for (int i = 0; i < n; i++) {
+            queuePos[draining[i]] = -1;
+        }
+        return n;
+    }
+
+    /** The i-th slot of the batch started by {@link #beginDrain}. */
+    public int takeDrained(int i) {
+        return draining[i];
+    }
+
+    // --- Internals ---
+
+    private void clearSlot(int slot) {
+        counts[slot] = 0;
+        eatState[slot] = 0;
+        idleStack[slot] = IDLE_NONE;
+        eatsRecorded[slot] = 0;
+        unqueue(slot);
+    }
+
+    private void unqueue(int slot) {
+        int pos = queuePos[slot];
+        if (pos < 0) return;
+        int last = pending[--pendingSize];
+        pending[pos] = last;
+        queuePos[last] = pos;
+        queuePos[slot] = -1;
+    }
+
+    private void freeSlot(int slot) {
+        entityIds[slot] = EMPTY_KEY;
+        uuids[slot] = null;
+        unqueue(slot);
+        freeSlots[freeTop++] = slot;
+        size--;
+    }
+
+    private void insertIndex(int entityId, int slot) {
+        int i = mix(entityId) & indexMask;
+        while (indexKeys[i] != EMPTY_KEY) {
+            i = (i + 1) & indexMask;
+        }
+        indexKeys[i] = entityId;
+        indexSlots[i] = slot;
+    }
+
+    /** Backward-shift deletion keeps probe chains intact without tombstones. */
+    private void removeIndex(int entityId) {
+        int i = mix(entityId) & indexMask;
+        while (indexKeys[i] != entityId) {
+            if (indexKeys[i] == EMPTY_KEY) return;
+            i = (i + 1) & indexMask;
+        }
+
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & indexMask;
+            int key = indexKeys[j];
+            if (key == EMPTY_KEY) break;
+            int home = mix(key) & indexMask;
+            // Move j into the gap if its home position is not in (gap, j]
+            if (((j - home) & indexMask) >= ((j - gap) & indexMask)) {
+                indexKeys[gap] = key;
+                indexSlots[gap] = indexSlots[j];
+                gap = j;
+            }
+        }
+        indexKeys[gap] = EMPTY_KEY;
+    }
+
+    private void grow() {
+        int[] oldIds = entityIds;
+        UUID[] oldUuids = uuids;
+        int[] oldCounts = counts;
+        int[] oldEat = eatState;
+        int[] oldIdle = idleStack;
+        int[] oldDeparted = departed;
+        int oldDepartedSize = departedSize;
+        int[] oldQueuePos = queuePos;
+        long[] oldEatTicks = eatTicks;
+        int[] oldEatsRecorded = eatsRecorded;
+        int[] oldPending = pending;
+        int oldPendingSize = pendingSize;
+        int oldHighWater = highWater;
+
+        allocate(oldIds.length * 2);
+
+        // Live slots keep their index so callers holding a slot stay valid
+        System.arraycopy(oldIds, 0, entityIds, 0, oldHighWater);
+        System.arraycopy(oldUuids, 0, uuids, 0, oldHighWater);
+        System.arraycopy(oldCounts, 0, counts, 0, oldHighWater);
+        System.arraycopy(oldEat, 0, eatState, 0, oldHighWater);
+        System.arraycopy(oldIdle, 0, idleStack, 0, oldHighWater);
+        System.arraycopy(oldDeparted, 0, departed, 0, oldDepartedSize);
+        departedSize = oldDepartedSize;
+        System.arraycopy(oldQueuePos, 0, queuePos, 0, oldHighWater);
+        System.arraycopy(oldEatTicks, 0, eatTicks, 0, oldHighWater * EAT_HISTORY);
+        System.arraycopy(oldEatsRecorded, 0, eatsRecorded, 0, oldHighWater);
+        System.arraycopy(oldPending, 0, pending, 0, oldPendingSize);
+        pendingSize = oldPendingSize;
+        highWater = oldHighWater;
+
+        // Departed slots are unbound but still occupied until released
+        for (int slot = 0; slot < highWater; slot++) {
+            if (uuids[slot] == null) {
+                freeSlots[freeTop++] = slot;
+                continue;
+            }
+            size++;
+            if (entityIds[slot] != EMPTY_KEY) {
+                insertIndex(entityIds[slot], slot);
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,157 @@
+package com.jellomakker.goldenapplecounter.tracker;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Players ordered by count, highest first, kept in order as counts change
+ * so the top of the ranking can be read at any time without sorting.
+ *
+ * Each player has a slot in primitive columns and a position in a slot
+ * array sorted by count. A change binary-searches the player's new position
+ * and shifts only the entries between the old and the new one, which for a
+ * count going up by one is usually none. Among equal counts, whoever
+ * reached the count first ranks higher. Client thread only.
+ */
+public final class Ranking {
+    private final Map<UUID, Integer> slots = new HashMap<>();
+
+    private UUID[] uuids = new UUID[16];
+    private int[] values = new int[16];
+    private int[] positions = new int[16];
+    /** Slots by rank. */
+    private int[] order = new int[16];
+
+    private int[] freeSlots = new int[16];
+    private int freeTop;
+    private int highWater;
+    private int size;
+
+    /** Bumped on every change, so readers can tell when to rebuild anything derived. */
+    private int version;
+
+    /** Players ranked. */
+    public int size() {
+        return size;
+    }
+
+    public int version() {
+        return version;
+    }
+
+    public UUID uuid(int rank) {
+        return uuids[order[rank]];
+    }
+
+    public int value(int rank) {
+        return values[order[rank]];
+    }
+
+    /** Sets a player's count; a count of zero or less takes them out of the ranking. */
+    public void set(UUID uuid, int value) {
+        if (value <= 0) {
+            remove(uuid);
+            return;
+        }
+
+        Integer existing = slots.get(uuid);
+        if (existing == null) {
+            int slot = allocate();
+            slots.put(uuid, slot);
+            uuids[slot] = uuid;
+            values[slot] = value;
+            positions[slot] = size;
+            order[size++] = slot;
+            moveUp(slot);
+        } else {
+            int slot = existing;
+            int old = values[slot];
+            if (old == value) return;
+            values[slot] = value;
+            if (value > old) moveUp(slot);
+            else moveDown(slot);
+        }
+        version++;
+    }
+
+    public void remove(UUID uuid) {
+        Integer existing = slots.remove(uuid);
+        if (existing == null) return;
+        int slot = existing;
+        int pos = positions[slot];
+        System.arraycopy(order, pos + 1, order, pos, size - pos - 1);
+        size--;
+        for (int i = pos; i < size; i++) {
+            positions[order[i]] = i;
+        }
+        uuids[slot] = null;
+        freeSlots[freeTop++] = slot;
+        version++;
+    }
+
+    public void clear() {
+        if (size == 0) return;
+        slots.clear();
+        Arrays.fill(uuids, 0, highWater, null);
+        freeTop = 0;
+        highWater = 0;
+        size = 0;
+        version++;
+    }
+
+    /** Moves a slot whose value went up ahead of every entry with a lower value. */
+    private void moveUp(int slot) {
+        int pos = positions[slot];
+        int value = values[slot];
+        // First position in [0, pos) holding a lower value
+        int lo = 0;
+        int hi = pos;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[order[mid]] < value) hi = mid;
+            else lo = mid + 1;
+        }
+        if (lo == pos) return;
+        System.arraycopy(order, lo, order, lo + 1, pos - lo);
+        order[lo] = slot;
+        for (int i = lo; i <= pos; i++) {
+            positions[order[i]] = i;
+        }
+    }
+
+    /** Moves a slot whose value went down behind every entry with a higher or equal value. */
+    private void moveDown(int slot) {
+        int pos = positions[slot];
+        int value = values[slot];
+        // One past the last position in (pos, size) holding a higher or equal value
+        int lo = pos + 1;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[order[mid]] >= value) lo = mid + 1;
+            else hi = mid;
+        }
+        int target = lo - 1;
+        if (target == pos) return;
+        System.arraycopy(order, pos + 1, order, pos, target - pos);
+        order[target] = slot;
+        for (int i = pos; i <= target; i++) {
+            positions[order[i]] = i;
+        }
+    }
+
+    private int allocate() {
+        if (freeTop > 0) return freeSlots[--freeTop];
+        if (highWater == uuids.length) {
+            int capacity = uuids.length * 2;
+            uuids = Arrays.copyOf(uuids, capacity);
+            values = Arrays.copyOf(values, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            order = Arrays.copyOf(order, capacity);
+            freeSlots = Arrays.copyOf(freeSlots, capacity);
+        }
+        return highWater++;
+    }
+}
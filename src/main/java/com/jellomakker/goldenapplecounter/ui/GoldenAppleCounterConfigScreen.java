@@ -2,11 +2,15 @@ package com.jellomakker.goldenapplecounter.ui;
 
 import com.jellomakker.goldenapplecounter.GoldenAppleCounterClient;
 import com.jellomakker.goldenapplecounter.config.GoldenAppleCounterConfig;
+import com.jellomakker.goldenapplecounter.render.LabelCompositor;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.gui.widget.ButtonWidget;
 import net.minecraft.text.Text;
 
 public class GoldenAppleCounterConfigScreen extends Screen {
+    private static final int[] LABEL_DISTANCES = {32, 64, 128, 0};
+    private static final int[] TOP_PLAYERS = {0, 3, 5, 10};
+
     private final Screen parent;
 
     private final GoldenAppleCounterConfig config = GoldenAppleCounterConfig.get();
@@ -17,6 +21,11 @@ public class GoldenAppleCounterConfigScreen extends Screen {
     private ButtonWidget showOnNameButton;
     private ButtonWidget includeSelfButton;
     private ButtonWidget showBackgroundButton;
+    private ButtonWidget detectionButton;
+    private ButtonWidget eatRateButton;
+    private ButtonWidget persistButton;
+    private ButtonWidget labelDistanceButton;
+    private ButtonWidget topPlayersButton;
 
     public GoldenAppleCounterConfigScreen(Screen parent) {
         super(Text.literal("Golden Apple Counter"));
@@ -33,33 +42,60 @@ public class GoldenAppleCounterConfigScreen extends Screen {
 
         this.enabledButton = ButtonWidget.builder(Text.empty(), button -> {
             this.config.enabled = !this.config.enabled;
-            this.updateLabels();
+            this.changed();
         }).dimensions(centerX - width / 2, y, width, height).build();
 
         this.normalAppleButton = ButtonWidget.builder(Text.empty(), button -> {
             this.config.countNormalGoldenApple = !this.config.countNormalGoldenApple;
-            this.updateLabels();
+            this.changed();
         }).dimensions(centerX - width / 2, y + spacing, width, height).build();
 
         this.enchantedAppleButton = ButtonWidget.builder(Text.empty(), button -> {
             this.config.countEnchantedGoldenApple = !this.config.countEnchantedGoldenApple;
-            this.updateLabels();
+            this.changed();
         }).dimensions(centerX - width / 2, y + spacing * 2, width, height).build();
 
         this.showOnNameButton = ButtonWidget.builder(Text.empty(), button -> {
             this.config.showOnPlayerName = !this.config.showOnPlayerName;
-            this.updateLabels();
+            this.changed();
         }).dimensions(centerX - width / 2, y + spacing * 3, width, height).build();
 
         this.includeSelfButton = ButtonWidget.builder(Text.empty(), button -> {
             this.config.includeSelfDisplay = !this.config.includeSelfDisplay;
-            this.updateLabels();
+            this.changed();
         }).dimensions(centerX - width / 2, y + spacing * 4, width, height).build();
 
         this.showBackgroundButton = ButtonWidget.builder(Text.empty(), button -> {
             this.config.showBackground = !this.config.showBackground;
-            this.updateLabels();
+            this.changed();
         }).dimensions(centerX - width / 2, y + spacing * 5, width, height).build();
+        // Only the counter that draws the combined label reads its background setting
+        this.showBackgroundButton.visible = LabelCompositor.composing();
+
+        this.detectionButton = ButtonWidget.builder(Text.empty(), button -> {
+            this.config.packetDrivenDetection = !this.config.packetDrivenDetection;
+            this.changed();
+        }).dimensions(centerX - width / 2, y + spacing * 6, width, height).build();
+
+        this.eatRateButton = ButtonWidget.builder(Text.empty(), button -> {
+            this.config.showEatRate = !this.config.showEatRate;
+            this.changed();
+        }).dimensions(centerX - width / 2, y + spacing * 7, width, height).build();
+
+        this.persistButton = ButtonWidget.builder(Text.empty(), button -> {
+            this.config.persistCounts = !this.config.persistCounts;
+            this.changed();
+        }).dimensions(centerX - width / 2, y + spacing * 8, width, height).build();
+
+        this.labelDistanceButton = ButtonWidget.builder(Text.empty(), button -> {
+            this.config.labelMaxDistance = next(LABEL_DISTANCES, this.config.labelMaxDistance);
+            this.changed();
+        }).dimensions(centerX - width / 2, y + spacing * 9, width, height).build();
+
+        this.topPlayersButton = ButtonWidget.builder(Text.empty(), button -> {
+            this.config.topPlayers = next(TOP_PLAYERS, this.config.topPlayers);
+            this.changed();
+        }).dimensions(centerX - width / 2, y + spacing * 10, width, height).build();
 
         this.addDrawableChild(this.enabledButton);
         this.addDrawableChild(this.normalAppleButton);
@@ -67,17 +103,22 @@ public class GoldenAppleCounterConfigScreen extends Screen {
         this.addDrawableChild(this.showOnNameButton);
         this.addDrawableChild(this.includeSelfButton);
         this.addDrawableChild(this.showBackgroundButton);
+        this.addDrawableChild(this.detectionButton);
+        this.addDrawableChild(this.eatRateButton);
+        this.addDrawableChild(this.persistButton);
+        this.addDrawableChild(this.labelDistanceButton);
+        this.addDrawableChild(this.topPlayersButton);
 
         // Reset counts button
         this.addDrawableChild(ButtonWidget.builder(Text.literal("Reset All Counts"), button -> {
             GoldenAppleCounterClient.clearAll();
-        }).dimensions(centerX - width / 2, y + spacing * 7, width, height).build());
+        }).dimensions(centerX - width / 2, y + spacing * 11, width, height).build());
 
         this.addDrawableChild(ButtonWidget.builder(Text.literal("Done"), button -> {
             this.config.save();
             assert this.client != null;
             this.client.setScreen(this.parent);
-        }).dimensions(centerX - width / 2, y + spacing * 8, width, height).build());
+        }).dimensions(centerX - width / 2, y + spacing * 12, width, height).build());
 
         this.updateLabels();
     }
@@ -89,6 +130,12 @@ public class GoldenAppleCounterConfigScreen extends Screen {
         this.client.setScreen(this.parent);
     }
 
+    /** Applies a toggled setting right away and refreshes the buttons. */
+    private void changed() {
+        this.config.changed();
+        this.updateLabels();
+    }
+
     private void updateLabels() {
         this.enabledButton.setMessage(Text.literal("Enabled: " + onOff(this.config.enabled)));
         this.normalAppleButton.setMessage(Text.literal("Count Golden Apples: " + onOff(this.config.countNormalGoldenApple)));
@@ -96,6 +143,21 @@ public class GoldenAppleCounterConfigScreen extends Screen {
         this.showOnNameButton.setMessage(Text.literal("Show Counter On Name: " + onOff(this.config.showOnPlayerName)));
         this.includeSelfButton.setMessage(Text.literal("Show Counter For Self: " + onOff(this.config.includeSelfDisplay)));
         this.showBackgroundButton.setMessage(Text.literal("See Through Walls: " + onOff(this.config.showBackground)));
+        this.detectionButton.setMessage(Text.literal("Detection: " + (this.config.packetDrivenDetection ? "Packets" : "Polling")));
+        this.eatRateButton.setMessage(Text.literal("Show Eat Rate: " + onOff(this.config.showEatRate)));
+        this.persistButton.setMessage(Text.literal("Remember Counts Per Server: " + onOff(this.config.persistCounts)));
+        this.labelDistanceButton.setMessage(Text.literal("Label Distance: "
+                + (this.config.labelMaxDistance > 0 ? this.config.labelMaxDistance + " Blocks" : "Unlimited")));
+        this.topPlayersButton.setMessage(Text.literal("Top Players Panel: "
+                + (this.config.topPlayers > 0 ? this.config.topPlayers + " Rows" : "OFF")));
+    }
+
+    /** Preset after {@code value} for a cycling button, wrapping around. */
+    private static int next(int[] presets, int value) {
+        for (int i = 0; i < presets.length - 1; i++) {
+            if (presets[i] == value) return presets[i + 1];
+        }
+        return presets[0];
     }
 
     private static String onOff(boolean value) {